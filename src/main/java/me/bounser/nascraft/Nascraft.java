@@ -20,6 +20,10 @@ import me.bounser.nascraft.commands.sell.sellinv.SellInvListener;
 import me.bounser.nascraft.commands.sell.sellinv.SellInvCommand;
 import me.bounser.nascraft.commands.sellwand.GiveSellWandCommand;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.DebtWriter;
+import me.bounser.nascraft.database.PortfolioWriter;
+import me.bounser.nascraft.database.LimitOrderJournal;
+import me.bounser.nascraft.database.TradeJournal;
 import me.bounser.nascraft.discord.DiscordBot;
 import me.bounser.nascraft.commands.discord.LinkCommand;
 import me.bounser.nascraft.discord.linking.LinkManager;
@@ -27,7 +31,10 @@ import me.bounser.nascraft.discord.linking.LinkingMethod;
 import me.bounser.nascraft.inventorygui.InventoryListener;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.EventsManager;
+import me.bounser.nascraft.managers.MarketTick;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.portfolio.PortfoliosManager;
+import me.bounser.nascraft.market.limitorders.LimitOrdersManager;
 import me.bounser.nascraft.placeholderapi.PAPIExpansion;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.sellwand.WandListener;
@@ -138,6 +145,8 @@ public final class Nascraft extends JavaPlugin {
             WandsManager.getInstance();
         }
 
+        PortfoliosManager.getInstance();
+
         if (config.getLoansEnabled()) {
             DebtManager.getInstance();
         }
@@ -145,6 +154,9 @@ public final class Nascraft extends JavaPlugin {
         createImagesFolder();
 
         MarketManager.getInstance();
+        TradeJournal.getInstance();
+
+        if (config.getLimitOrdersEnabled()) LimitOrdersManager.getInstance();
 
         if (config.isCommandEnabled("nascraft")) {
             new NascraftCommand();
@@ -197,6 +209,11 @@ public final class Nascraft extends JavaPlugin {
     public void onDisable() {
 
         getLogger().info("Saving and closing connection with database...");
+        MarketTick.getInstance().shutdown();
+        TradeJournal.getInstance().shutdown();
+        if (Config.getInstance().getLimitOrdersEnabled()) LimitOrderJournal.getInstance().shutdown();
+        if (Config.getInstance().getLoansEnabled()) DebtWriter.getInstance().shutdown();
+        PortfolioWriter.getInstance().shutdown();
         DatabaseManager.get().getDatabase().disconnect();
         getLogger().info("Done!");
 
@@ -326,8 +326,8 @@ public class LayoutModifier implements LayoutExtension {
     public void updateTrending(GroupComponent icTree) {
         Item trendingItem = null;
 
-        for (Item item : MarketManager.getInstance().getAllParentItems()) {
-            if ((trendingItem == null || trendingItem.getOperations() < item.getOperations()) && item.getOperations() > 10) trendingItem = item;
+        for (Item item : MarketManager.getInstance().getMostTraded(1)) {
+            if (item.getOperations() > 10) trendingItem = item;
         }
 
         if (trendingItem != null) {
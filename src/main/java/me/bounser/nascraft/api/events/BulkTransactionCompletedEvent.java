@@ -0,0 +1,52 @@
+package me.bounser.nascraft.api.events;
+
+import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.unit.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.Map;
+
+public class BulkTransactionCompletedEvent extends Event {
+
+    private static final HandlerList HANDLERS_LIST = new HandlerList();
+
+    private final Player player;
+    private final Map<Item, Integer> amounts;
+    private final Map<Currency, Double> worth;
+    private final Action action;
+
+    public BulkTransactionCompletedEvent(Player player, Map<Item, Integer> amounts, Map<Currency, Double> worth, Action action) {
+        this.player = player;
+        this.amounts = amounts;
+        this.worth = worth;
+        this.action = action;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS_LIST;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS_LIST;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Map<Item, Integer> getAmounts() {
+        return amounts;
+    }
+
+    public Map<Currency, Double> getWorth() {
+        return worth;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+}
@@ -2,7 +2,7 @@ package me.bounser.nascraft.chart.cpi;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
-import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.market.PriceIndices;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
@@ -33,7 +33,7 @@ public class CPIChart {
     private static JFreeChart createChart() {
 
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-        List<CPIInstant> data = DatabaseManager.get().getDatabase().getCPIHistory();
+        List<CPIInstant> data = PriceIndices.getInstance().getHistory();
 
 
         XYDataset priceData = createPriceDataset(data);
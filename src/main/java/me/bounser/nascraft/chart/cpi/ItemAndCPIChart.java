@@ -3,6 +3,7 @@ package me.bounser.nascraft.chart.cpi;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.market.PriceIndices;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import org.jfree.chart.ChartFactory;
@@ -38,7 +39,7 @@ public class ItemAndCPIChart {
     private static JFreeChart createChart(Item item) {
 
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-        List<CPIInstant> data = DatabaseManager.get().getDatabase().getCPIHistory();
+        List<CPIInstant> data = PriceIndices.getInstance().getHistory();
 
         XYDataset priceData = createPriceDataset(data, item);
         JFreeChart chart = ChartFactory.createTimeSeriesChart(
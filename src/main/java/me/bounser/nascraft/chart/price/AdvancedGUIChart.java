@@ -1,6 +1,5 @@
 package me.bounser.nascraft.chart.price;
 
-import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import org.jfree.chart.ChartFactory;
@@ -34,19 +33,19 @@ public class AdvancedGUIChart {
 
         switch (chartType) {
             case DAY:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                data = item.getItemStats().getDayPrices();
                 break;
             case MONTH:
-                data = DatabaseManager.get().getDatabase().getMonthPrices(item);
+                data = item.getItemStats().getMonthPrices();
                 break;
             case YEAR:
-                data = DatabaseManager.get().getDatabase().getYearPrices(item);
+                data = item.getItemStats().getYearPrices();
                 break;
             case ALL:
-                data = DatabaseManager.get().getDatabase().getAllPrices(item);
+                data = item.getItemStats().getAllPrices();
                 break;
             default:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                data = item.getItemStats().getDayPrices();
         }
 
         TimeSeries series = createPriceDataset(data);
@@ -51,24 +51,24 @@ public class ItemChart {
 
             case DAY:
                 simpleDateFormat = new SimpleDateFormat("HH:mm");
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                data = item.getItemStats().getDayPrices();
                 break;
             case MONTH:
                 simpleDateFormat = new SimpleDateFormat("d-MMM");
-                data = DatabaseManager.get().getDatabase().getMonthPrices(item);
+                data = item.getItemStats().getMonthPrices();
                 break;
             case YEAR:
                 simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-                data = DatabaseManager.get().getDatabase().getYearPrices(item);
+                data = item.getItemStats().getYearPrices();
                 break;
             case ALL:
                 simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-                data = DatabaseManager.get().getDatabase().getAllPrices(item);
+                data = item.getItemStats().getAllPrices();
                 break;
 
             default:
                 simpleDateFormat = new SimpleDateFormat("HH:mm");
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                data = item.getItemStats().getDayPrices();
 
         }
 
@@ -331,7 +331,10 @@ public class EditItemMenu {
             items.set("items." + identifier + ".resistance", resistance);
 
         if (itemStack != null && itemStack.getType() != Material.AIR) {
-            if (item != null) item.setItemStack(itemStack);
+            if (item != null) {
+                item.setItemStack(itemStack);
+                MarketManager.getInstance().rebuildItemIndex();
+            }
             items.set("items." + identifier + ".item-stack", itemStack);
         }
 
@@ -373,6 +376,8 @@ public class EditItemMenu {
                 prevCategory.removeItem(item);
             }
 
+            MarketManager.getInstance().rebuildView();
+
             player.sendMessage(ChatColor.LIGHT_PURPLE + "Property changes saved!");
         } else {
             Item item = new Item(itemStack, identifier, alias, category, ImagesManager.getInstance().getImage(identifier));
@@ -10,6 +10,7 @@ import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.managers.DebtManager;
+import me.bounser.nascraft.managers.MarketTick;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.market.MarketManager;
@@ -127,9 +128,12 @@ public class NascraftCommand extends Command {
                 Currency currency = CurrenciesManager.getInstance().getDefaultCurrency();
 
                 String msg = "\n<color:#9985ff>● All time inflation: <color:#57ffa0>" + Formatter.roundToDecimals(MarketManager.getInstance().getConsumerPriceIndex()-100, 3) + "%</color>\n\n"
-                        + "● All outstanding debt: " + Formatter.format(currency, DatabaseManager.get().getDatabase().getAllOutstandingDebt(), Style.ROUND_BASIC) + " (" + DatabaseManager.get().getDatabase().getUUIDAndDebt().keySet().size()  + " debtors)\n"
-                        + "● All interests collected: " + Formatter.format(currency, DatabaseManager.get().getDatabase().getAllInterestsPaid(), Style.ROUND_BASIC) + "\n\n"
-                        + "● All taxes collected: " + Formatter.format(currency, Math.abs(DatabaseManager.get().getDatabase().getAllTaxesCollected()), Style.ROUND_BASIC) + "</color>\n";
+                        + "● All outstanding debt: " + Formatter.format(currency, DebtManager.getInstance().getAllOutstandingDebt(), Style.ROUND_BASIC) + " (" + DebtManager.getInstance().getDebtors()  + " debtors)\n"
+                        + "● All interests collected: " + Formatter.format(currency, DebtManager.getInstance().getAllInterestsPaid(), Style.ROUND_BASIC) + "\n\n"
+                        + "● All taxes collected: " + Formatter.format(currency, Math.abs(DatabaseManager.get().getDatabase().getAllTaxesCollected()), Style.ROUND_BASIC) + "\n\n"
+                        + "● Last market tick: " + Formatter.roundToDecimals(MarketTick.getInstance().getLastTiming(MarketTick.Phase.ITEMS), 2) + "ms items, "
+                        + Formatter.roundToDecimals(MarketTick.getInstance().getLastTiming(MarketTick.Phase.HISTORY), 2) + "ms history, "
+                        + Formatter.roundToDecimals(MarketTick.getInstance().getLastTiming(MarketTick.Phase.LAYOUT), 2) + "ms layouts</color>\n";
 
                 Lang.get().message((Player) sender, msg);
 
@@ -164,7 +168,7 @@ public class NascraftCommand extends Command {
 
                 sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + "Reloaded! " +
                         MarketManager.getInstance().getAllItems().size() + " items (" +
-                        MarketManager.getInstance().getAllParentItems().size() + " parents and " + (MarketManager.getInstance().getAllItems().size() - MarketManager.getInstance().getAllParentItems().size()) +
+                        MarketManager.getInstance().getAllParentItems().size() + " parents and " + MarketManager.getInstance().getAllChildItems().size() +
                         " childs) within " + Config.getInstance().getCategories().size() + " categories.");
 
                 break;
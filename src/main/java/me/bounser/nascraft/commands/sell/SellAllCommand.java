@@ -6,8 +6,8 @@ import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.formatter.Formatter;
-import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.BulkSale;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.Item;
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 public class SellAllCommand extends Command {
@@ -125,115 +126,52 @@ public class SellAllCommand extends Command {
 
     public void sellEverything(Player player, boolean confirmed) {
 
-        if (player.getInventory().getContents() == null) return;
+        if (player.getInventory().getStorageContents() == null) return;
 
-        HashMap<Item, Float> items = new HashMap<>();
+        BulkSale sale = BulkSale.of(player.getInventory().getStorageContents());
 
-        for (ItemStack itemStack : player.getInventory()) {
-
-            if (itemStack != null && !itemStack.getType().equals(Material.AIR)) {
-                Item item = MarketManager.getInstance().getItem(itemStack);
-
-                if (item == null) continue;
-
-                Item parent = item.isParent() ? item : item.getParent();
-
-                if (items.containsKey(parent)) {
-                    items.put(parent, items.get(parent) + itemStack.getAmount() * item.getMultiplier());
-                } else {
-                    items.put(parent, itemStack.getAmount() * item.getMultiplier());
-                }
-            }
-        }
-
-        if (items.isEmpty()) {
+        if (sale.isEmpty()) {
             Lang.get().message(player, Message.SELLALL_EVERYTHING_ERROR);
             return;
         }
 
-        HashMap<Item, Integer> content = new HashMap<>();
-
-        for (ItemStack itemStack : player.getInventory().getContents()) {
-
-            if (itemStack == null) continue;
-
-            Item item = MarketManager.getInstance().getItem(itemStack);
-
-            if (item == null) continue;
-
-            if (content.containsKey(item)) {
-                content.put(item, content.get(item) + itemStack.getAmount());
-            } else {
-                content.put(item, itemStack.getAmount());
-            }
-        }
-
         if (confirmed) {
 
-            HashMap<Currency, Double> value = new HashMap<>();
-            int amount = 0;
+            if (!MarketManager.getInstance().getActive()) {
+                Lang.get().message(player, Message.SHOP_CLOSED);
+                return;
+            }
 
-            for (Item item : content.keySet()) {
-                amount += content.get(item);
+            Map<Currency, Double> value = sale.execute(player.getUniqueId());
 
-                if (value.containsKey(item.getCurrency())) {
-                    value.put(item.getCurrency(), value.get(item.getCurrency()) + item.sell(content.get(item), player.getUniqueId(), true));
-                } else {
-                    value.put(item.getCurrency(), item.sell(content.get(item), player.getUniqueId(), true));
-                }
+            if (value.isEmpty()) {
+                // Sales cancelled by listeners are left to them to explain, as with single sales
+                if (sale.isLimitReached()) Lang.get().message(player, Message.BOTTOM_LIMIT_REACHED);
+                return;
             }
 
+            for (int slot = 0; slot < player.getInventory().getStorageContents().length; slot++)
+                if (sale.isSold(slot)) player.getInventory().setItem(slot, null);
+
             String values = "";
 
             for (Currency currency : value.keySet()) {
                 values += Formatter.format(currency, value.get(currency), Style.ROUND_BASIC) + " ";
             }
 
-            Lang.get().message(player, Message.SELLALL_TOTAL, values, String.valueOf(amount), "");
+            Lang.get().message(player, Message.SELLALL_TOTAL, values, String.valueOf(sale.getSoldAmount()), "");
 
         } else {
 
-            String text = "";
-
-            List<String> currencies = new ArrayList<>();
-
-            for (Item item : content.keySet()) {
-                if (!currencies.contains(item.getCurrency().getCurrencyIdentifier())) currencies.add(item.getCurrency().getCurrencyIdentifier());
-            }
-
-            HashMap<String, List<Item>> itemsPerCurrency = new HashMap<>();
-
-            for (Item item : content.keySet())  {
+            Map<Currency, Double> totalValuePerCurrency = sale.quote();
 
-                String currencyIdentifier = item.getCurrency().getCurrencyIdentifier();
-
-                if (itemsPerCurrency.containsKey(currencyIdentifier)) {
-                    List<Item> itemsOfCertainCurrency = itemsPerCurrency.get(currencyIdentifier);
-                    itemsOfCertainCurrency.add(item);
-                    itemsPerCurrency.put(currencyIdentifier, itemsOfCertainCurrency);
-                } else {
-                    List<Item> list = new ArrayList<>();
-                    list.add(item);
-                    itemsPerCurrency.put(currencyIdentifier, list);
-                }
-            }
-
-            HashMap<String, Float> totalValuePerCurrency = new HashMap<>();
-
-            for (String string : itemsPerCurrency.keySet()) {
-
-                float value = 0;
+            String text = "";
 
-                for (Item item : itemsPerCurrency.get(string)) {
-                    value += item.getPrice().getProjectedCost(content.get(item) * item.getMultiplier(), item.getPrice().getSellTaxMultiplier());
+            for (BulkSale.Line line : sale.getLines()) {
+                for (Map.Entry<Item, Integer> entry : line.getAmounts().entrySet()) {
+                    Item item = entry.getKey();
+                    text = text + Lang.get().message(Message.LIST_SEGMENT, Formatter.format(item.getCurrency(), line.getWorth(item), Style.ROUND_BASIC), String.valueOf(entry.getValue()), item.getName());
                 }
-
-                totalValuePerCurrency.put(string, value);
-            }
-
-            for (Item item : content.keySet()) {
-                double value = item.getPrice().getProjectedCost(content.get(item) * item.getMultiplier(), item.getPrice().getSellTaxMultiplier());
-                text = text + Lang.get().message(Message.LIST_SEGMENT, Formatter.format(item.getCurrency(), value, Style.ROUND_BASIC), String.valueOf(content.get(item)), item.getName());
             }
 
             text = text + "\n";
@@ -244,8 +182,8 @@ public class SellAllCommand extends Command {
 
             String perCurrencyText = "";
 
-            for (String currency : totalValuePerCurrency.keySet()) {
-                perCurrencyText += Formatter.format(CurrenciesManager.getInstance().getCurrency(currency), totalValuePerCurrency.get(currency), Style.ROUND_BASIC) + "\n";
+            for (Currency currency : totalValuePerCurrency.keySet()) {
+                perCurrencyText += Formatter.format(currency, totalValuePerCurrency.get(currency), Style.ROUND_BASIC) + "\n";
             }
 
             String finalText = Lang.get().message(Message.SELLALL_ESTIMATED_VALUE).replace("[WORTH]", perCurrencyText) + text;
@@ -7,6 +7,7 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.managers.InventoryManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.BulkSale;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.Item;
@@ -62,11 +63,9 @@ public class SellInvListener implements Listener {
 
                 int totalChange = itemClicked.getAmount();
 
-                ItemStack itemItemStack = item.getItemStack();
-
                 if (playerItems.containsKey(player) && !playerItems.get(player).isEmpty())
                     for (ItemStack itemStack : playerItems.get(player))
-                        if (MarketManager.getInstance().isSimilarEnough(itemItemStack, itemStack))
+                        if (MarketManager.getInstance().isSimilarEnough(item, itemStack))
                             totalChange += itemStack.getAmount();
 
 
@@ -137,31 +136,15 @@ public class SellInvListener implements Listener {
                         return;
                     }
 
-                    if (playerItems.isEmpty()) return;
-
-                    HashMap<Currency, Double> result = new HashMap<>();
-
-                    List<ItemStack> newPlayerItems = new ArrayList<>();
+                    List<ItemStack> toSell = playerItems.get(player);
 
-                    for (ItemStack itemStack : playerItems.get(player)) {
+                    if (toSell == null || toSell.isEmpty()) return;
 
-                        Item item = MarketManager.getInstance().getItem(itemStack);
+                    BulkSale sale = new BulkSale(toSell);
 
-                        if (item.getPrice().canStockChange(itemStack.getAmount(), false) || !item.isPriceRestricted()) {
-                            double value = item.sell(itemStack.getAmount(), player.getUniqueId(), false);
+                    Map<Currency, Double> result = sale.execute(player.getUniqueId());
 
-                            if (result.containsKey(item.getCurrency())) {
-                                double tempValue = result.get(item.getCurrency());
-                                tempValue += value;
-                                result.put(item.getCurrency(), tempValue);
-                            } else {
-                                result.put(item.getCurrency(), value);
-                            }
-
-                        } else {
-                            newPlayerItems.add(itemStack);
-                        }
-                    }
+                    List<ItemStack> newPlayerItems = sale.getUnsoldStacks();
 
                     if (newPlayerItems.isEmpty()) playerItems.remove(player);
                     else playerItems.put(player, newPlayerItems);
@@ -334,20 +317,7 @@ public class SellInvListener implements Listener {
 
         if (playerItems.get(player) == null) return valuePerCurrency;
 
-        HashMap<Item, Integer> content = new HashMap<>();
-
-        for (ItemStack itemStack : playerItems.get(player)) {
-
-            Item item = MarketManager.getInstance().getItem(itemStack);
-
-            content.compute(item, (key, value) -> (value == null) ? itemStack.getAmount() : value + itemStack.getAmount());
-        }
-
-        for (Item item : content.keySet()) {
-            double internalValue = valuePerCurrency.get(item.getCurrency());
-            internalValue += item.sellPrice(content.get(item));
-            valuePerCurrency.put(item.getCurrency(), internalValue);
-        }
+        valuePerCurrency.putAll(new BulkSale(playerItems.get(player)).quote());
 
         return valuePerCurrency;
     }
@@ -12,6 +12,7 @@ import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.discord.linking.LinkingMethod;
 import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.PriceIndices;
 import me.bounser.nascraft.market.unit.Item;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -167,6 +168,66 @@ public class Config {
         return config.getInt("database.days-until-history-removed");
     }
 
+    public int getSaveInterval() {
+        if (!config.contains("database.save-interval")) return 300;
+        return Math.max(10, config.getInt("database.save-interval"));
+    }
+
+    public int getSQLiteReadConnections() {
+        if (!config.contains("database.sqlite.read-connections")) return 4;
+        return config.getInt("database.sqlite.read-connections");
+    }
+
+    public int getSQLiteMmapSize() {
+        if (!config.contains("database.sqlite.mmap-size")) return 128;
+        return config.getInt("database.sqlite.mmap-size");
+    }
+
+    public int getSQLiteCacheSize() {
+        if (!config.contains("database.sqlite.cache-size")) return 16;
+        return config.getInt("database.sqlite.cache-size");
+    }
+
+    public int getTradeJournalCapacity() {
+        if (!config.contains("database.trade-journal.capacity")) return 10000;
+        return config.getInt("database.trade-journal.capacity");
+    }
+
+    public int getTradeJournalBatchSize() {
+        if (!config.contains("database.trade-journal.batch-size")) return 200;
+        return config.getInt("database.trade-journal.batch-size");
+    }
+
+    public int getTradeJournalFlushInterval() {
+        if (!config.contains("database.trade-journal.flush-interval")) return 500;
+        return config.getInt("database.trade-journal.flush-interval");
+    }
+
+    public int getLimitOrderJournalFlushInterval() {
+        if (!config.contains("database.limit-order-journal.flush-interval")) return 1000;
+        return config.getInt("database.limit-order-journal.flush-interval");
+    }
+
+    public int getPortfolioWriterFlushInterval() {
+        if (!config.contains("database.portfolio-writer.flush-interval")) return 1000;
+        return config.getInt("database.portfolio-writer.flush-interval");
+    }
+
+    public int getDebtWriterFlushInterval() {
+        if (!config.contains("database.debt-writer.flush-interval")) return 2000;
+        return config.getInt("database.debt-writer.flush-interval");
+    }
+
+    public int getHistoryCacheMemoryBudget() {
+        if (!config.contains("database.history-cache.memory-budget")) return 64;
+        return config.getInt("database.history-cache.memory-budget");
+    }
+
+    public int getHistoryCacheDays() {
+        if (!config.contains("database.history-cache.max-days")) return 730;
+        return Math.max(366, config.getInt("database.history-cache.max-days"));
+    }
+
     public String getSelectedLanguage() {
         return config.getString("language");
     }
@@ -237,6 +298,32 @@ public class Config {
         return config.getInt("price-options.noise.time");
     }
 
+    public int getMarketTickThreads() {
+        if (!config.contains("price-options.tick.threads")) return 0;
+        return config.getInt("price-options.tick.threads");
+    }
+
+    public boolean getMarketTickDeterministic() {
+        if (!config.contains("price-options.tick.deterministic")) return false;
+        return config.getBoolean("price-options.tick.deterministic");
+    }
+
+    public PriceIndices.Weighting getCPIWeighting() {
+        if (!config.contains("price-options.cpi.weighting")) return PriceIndices.Weighting.EQUAL;
+
+        try {
+            return PriceIndices.Weighting.valueOf(config.getString("price-options.cpi.weighting").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Nascraft.getInstance().getLogger().warning("Unknown CPI weighting: " + config.getString("price-options.cpi.weighting") + ". Using equal weights.");
+            return PriceIndices.Weighting.EQUAL;
+        }
+    }
+
+    public int getCPIHistoryDays() {
+        if (!config.contains("price-options.cpi.history-days")) return 730;
+        return config.getInt("price-options.cpi.history-days");
+    }
+
     public boolean isMarketClosed() {
         if (!config.contains("market-control.closed")) return false;
         return config.getBoolean("market-control.closed");
@@ -515,6 +602,16 @@ public class Config {
         return config.getInt("portfolio.storage-limit");
     }
 
+    public int getPortfolioCacheMaxSize() {
+        if (!config.contains("portfolio.cache.max-size")) return 1000;
+        return config.getInt("portfolio.cache.max-size");
+    }
+
+    public int getPortfolioCacheIdleMinutes() {
+        if (!config.contains("portfolio.cache.idle-minutes")) return 30;
+        return config.getInt("portfolio.cache.idle-minutes");
+    }
+
     public float getSlotPriceFactor() {
         return (float) config.getDouble("portfolio.slot-price-factor");
     }
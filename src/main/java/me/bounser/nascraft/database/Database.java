@@ -2,16 +2,21 @@ package me.bounser.nascraft.database;
 
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.database.commands.resources.LimitOrderEvent;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.Resolution;
 import me.bounser.nascraft.portfolio.Portfolio;
 
 import java.sql.Connection;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface Database {
@@ -34,13 +39,13 @@ public interface Database {
 
     //
 
-    void saveDayPrice(Item item, Instant instant);
-    void saveMonthPrice(Item item, Instant instant);
-    void saveHistoryPrices(Item item, Instant instant);
+    void saveHistory(List<HistoryEntry> entries);
+    void pruneHistory();
     List<Instant> getDayPrices(Item item);
     List<Instant> getMonthPrices(Item item);
     List<Instant> getYearPrices(Item item);
     List<Instant> getAllPrices(Item item);
+    List<Candle> getCandles(Item item, Resolution resolution, int limit);
     Double getPriceOfDay(String identifier, int day);
 
     //
@@ -53,6 +58,7 @@ public interface Database {
     //
 
     void saveTrade(Trade trade);
+    void saveTrades(List<Trade> trades);
     List<Trade> retrieveTrades(UUID uuid, int offset, int limit);
     List<Trade> retrieveTrades(UUID uuid, Item item, int offset, int limit);
     List<Trade> retrieveTrades(Item item, int offset, int limit);
@@ -61,18 +67,14 @@ public interface Database {
 
     //
 
-    void updateItemPortfolio(UUID uuid, Item item, int quantity);
-    void removeItemPortfolio(UUID uuid, Item item);
-    void clearPortfolio(UUID uuid);
+    void savePortfolioDeltas(List<PortfolioDelta> deltas);
     void updateCapacity(UUID uuid, int capacity);
     LinkedHashMap<Item, Integer> retrievePortfolio(UUID uuid);
     int retrieveCapacity(UUID uuid);
 
-    void increaseDebt(UUID uuid, Double debt);
-    void decreaseDebt(UUID uuid, Double debt);
+    void saveDebts(Map<UUID, Double> debts, Map<UUID, Double> interests);
     double getDebt(UUID uuid);
     HashMap<UUID, Double> getUUIDAndDebt();
-    void addInterestPaid(UUID uuid, Double interest);
     HashMap<UUID, Double> getUUIDAndInterestsPaid();
     double getInterestsPaid(UUID uuid);
     double getAllOutstandingDebt();
@@ -85,8 +87,6 @@ public interface Database {
 
     //
 
-    void logContribution(UUID uuid, Item item, int amount);
-    void logWithdraw(UUID uuid, Item item, int amount);
     HashMap<Integer, Double> getContributionChangeEachDay(UUID uuid);
     HashMap<Integer, HashMap<String, Integer>> getCompositionEachDay(UUID uuid);
     int getFirstDay(UUID uuid);
@@ -107,9 +107,7 @@ public interface Database {
     void removeAllAlerts(String userid);
     void purgeAlerts();
 
-    void addLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount);
-    void updateLimitOrder(UUID uuid, Item item, int completed, double cost);
-    void removeLimitOrder(String uuid, String identifier);
+    void saveLimitOrderEvents(List<LimitOrderEvent> events);
     void retrieveLimitOrders();
 
     String getNameByUUID(UUID uuid);
@@ -0,0 +1,112 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.managers.DebtManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind for the debt ledger. Only the players whose debt or interests changed are remembered, and
+ * their latest values are read from the ledger when flushing, so any amount of changes between two flushes
+ * costs a single write per player.
+ */
+public class DebtWriter {
+
+    private final Set<UUID> dirtyDebts = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> dirtyInterests = ConcurrentHashMap.newKeySet();
+
+    private final int flushInterval;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private static DebtWriter instance;
+
+    public static DebtWriter getInstance() { return instance == null ? instance = new DebtWriter() : instance; }
+
+    private DebtWriter() {
+        flushInterval = Math.max(10, Config.getInstance().getDebtWriterFlushInterval());
+
+        writer = new Thread(this::flushLoop, "Nascraft-DebtWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void debtChanged(UUID uuid) { dirtyDebts.add(uuid); }
+
+    public void interestsChanged(UUID uuid) { dirtyInterests.add(uuid); }
+
+    private void flushLoop() {
+
+        while (running) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            }
+
+            flush();
+        }
+    }
+
+    private synchronized void flush() {
+
+        if (dirtyDebts.isEmpty() && dirtyInterests.isEmpty()) return;
+
+        DebtManager debtManager = DebtManager.getInstance();
+
+        Map<UUID, Double> debts = new HashMap<>();
+        Map<UUID, Double> interests = new HashMap<>();
+
+        // Removed before reading so a change made while writing marks the player again
+        for (UUID uuid : dirtyDebts) {
+            dirtyDebts.remove(uuid);
+            debts.put(uuid, debtManager.getDebtOfPlayer(uuid));
+        }
+
+        for (UUID uuid : dirtyInterests) {
+            dirtyInterests.remove(uuid);
+            interests.put(uuid, debtManager.getLifeTimeInterests(uuid));
+        }
+
+        try {
+            DatabaseManager.get().getDatabase().saveDebts(debts, interests);
+            written.addAndGet(debts.size() + interests.size());
+        } catch (Exception e) {
+            // Marked again so the values are retried on the next flush
+            dirtyDebts.addAll(debts.keySet());
+            dirtyInterests.addAll(interests.keySet());
+            failed.addAndGet(debts.size() + interests.size());
+            Nascraft.getInstance().getLogger().warning("Error writing " + (debts.size() + interests.size()) + " debt changes: " + e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+
+        running = false;
+        writer.interrupt();
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        Nascraft.getInstance().getLogger().info("Debt writer: " + written.get() + " values written, " + failed.get() + " failed.");
+    }
+
+    public int getPending() { return dirtyDebts.size() + dirtyInterests.size(); }
+
+}
@@ -0,0 +1,188 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.LimitOrderEvent;
+import me.bounser.nascraft.market.limitorders.LimitOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log of limit order changes written to the database in batches by a background thread.
+ * The order books in memory are the source of truth while the server runs; the table is only read on startup.
+ * A batch that fails is put back at the front of the queue and retried, since a lost placement or fill would
+ * lose an order already paid for or fill it again after a restart.
+ */
+public class LimitOrderJournal {
+
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final BlockingDeque<LimitOrderEvent> queue = new LinkedBlockingDeque<>();
+
+    private final int flushInterval;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private static LimitOrderJournal instance;
+
+    public static LimitOrderJournal getInstance() { return instance == null ? instance = new LimitOrderJournal() : instance; }
+
+    private LimitOrderJournal() {
+        flushInterval = Math.max(10, Config.getInstance().getLimitOrderJournalFlushInterval());
+
+        writer = new Thread(this::drainLoop, "Nascraft-LimitOrderJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void place(LimitOrder order) { record(LimitOrderEvent.place(order)); }
+
+    public void fill(LimitOrder order) { record(LimitOrderEvent.fill(order)); }
+
+    public void cancel(LimitOrder order) { record(LimitOrderEvent.cancel(order)); }
+
+    private void record(LimitOrderEvent event) {
+
+        recorded.incrementAndGet();
+
+        if (running) {
+            queue.add(event);
+            return;
+        }
+
+        // Recorded after shutdown, written right away along with anything still queued
+        queue.add(event);
+        flushRemaining();
+    }
+
+    private void drainLoop() {
+
+        List<LimitOrderEvent> batch = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                LimitOrderEvent first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch);
+
+                boolean success = write(coalesce(batch));
+                batch.clear();
+
+                if (success) continue;
+
+                // What is left is written by shutdown()
+                if (!running) break;
+
+                Thread.sleep(flushInterval);
+
+            } catch (InterruptedException e) {
+                if (!running) break;
+            }
+        }
+    }
+
+    /**
+     * Consecutive fills of the same order only need the last one. A placement or cancellation in between
+     * keeps them apart, so the statements still run in the order the changes happened.
+     */
+    private List<LimitOrderEvent> coalesce(List<LimitOrderEvent> events) {
+
+        List<LimitOrderEvent> result = new ArrayList<>(events.size());
+        Map<String, Integer> pendingFills = new HashMap<>();
+
+        for (LimitOrderEvent event : events) {
+
+            if (event.getType() != LimitOrderEvent.Type.FILL) {
+                pendingFills.remove(event.getKey());
+                result.add(event);
+                continue;
+            }
+
+            Integer position = pendingFills.get(event.getKey());
+
+            if (position != null) {
+                result.set(position, event);
+            } else {
+                pendingFills.put(event.getKey(), result.size());
+                result.add(event);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return whether the events were written. If not, they are back at the front of the queue in the same order.
+     */
+    private boolean write(List<LimitOrderEvent> events) {
+        try {
+            DatabaseManager.get().getDatabase().saveLimitOrderEvents(events);
+            written.addAndGet(events.size());
+            return true;
+        } catch (Exception e) {
+            for (int i = events.size() - 1; i >= 0; i--) queue.addFirst(events.get(i));
+
+            failed.addAndGet(events.size());
+            Nascraft.getInstance().getLogger().warning("Error writing " + events.size() + " limit order changes, retrying: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void flushRemaining() {
+
+        for (int attempt = 0; attempt < SHUTDOWN_ATTEMPTS && !queue.isEmpty(); attempt++) {
+
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            List<LimitOrderEvent> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+
+            write(coalesce(remaining));
+        }
+
+        if (!queue.isEmpty())
+            Nascraft.getInstance().getLogger().severe(queue.size() + " limit order changes could not be written.");
+    }
+
+    public void shutdown() {
+
+        running = false;
+        writer.interrupt();
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        flushRemaining();
+
+        Nascraft.getInstance().getLogger().info("Limit order journal: " + recorded.get() + " changes recorded, " +
+                written.get() + " written, " + failed.get() + " failed.");
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+
+}
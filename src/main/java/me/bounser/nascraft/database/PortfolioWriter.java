@@ -0,0 +1,158 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind for portfolios. Changes to the same item of the same portfolio are merged until the next flush,
+ * which writes the final amount and one contribution log entry per item and day in a single transaction.
+ */
+public class PortfolioWriter {
+
+    private final Map<String, PortfolioDelta> pending = new ConcurrentHashMap<>();
+
+    // Changes taken by the current flush, still not in the database
+    private volatile List<PortfolioDelta> writing = new ArrayList<>();
+
+    private final int flushInterval;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private static PortfolioWriter instance;
+
+    public static PortfolioWriter getInstance() { return instance == null ? instance = new PortfolioWriter() : instance; }
+
+    private PortfolioWriter() {
+        flushInterval = Math.max(10, Config.getInstance().getPortfolioWriterFlushInterval());
+
+        writer = new Thread(this::flushLoop, "Nascraft-PortfolioWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void deposit(UUID uuid, Item item, int amount, int newAmount) {
+        double value = item.getPrice().getValue() * amount;
+        change(uuid, item, delta -> {
+            delta.setAmount(newAmount);
+            delta.deposit(amount, value);
+        });
+    }
+
+    public void withdraw(UUID uuid, Item item, int amount, int newAmount) {
+        double value = item.getPrice().getValue() * amount;
+        change(uuid, item, delta -> {
+            delta.setAmount(newAmount);
+            delta.withdraw(amount, value);
+        });
+    }
+
+    /**
+     * Changes the amount held without logging a contribution, as when items are sold from the portfolio.
+     */
+    public void setAmount(UUID uuid, Item item, int newAmount) {
+        change(uuid, item, delta -> delta.setAmount(newAmount));
+    }
+
+    private void change(UUID uuid, Item item, Consumer<PortfolioDelta> change) {
+
+        int day = NormalisedDate.getDays();
+
+        pending.compute(PortfolioDelta.key(uuid, item.getIdentifier(), day), (key, delta) -> {
+            if (delta == null) delta = new PortfolioDelta(uuid, item.getIdentifier(), day);
+            change.accept(delta);
+            return delta;
+        });
+    }
+
+    /**
+     * Whether the database is still behind the portfolio in memory, in which case it can't be loaded again from it.
+     */
+    public boolean hasPending(UUID uuid) {
+        for (PortfolioDelta delta : pending.values())
+            if (delta.getUuid().equals(uuid)) return true;
+        for (PortfolioDelta delta : writing)
+            if (delta.getUuid().equals(uuid)) return true;
+        return false;
+    }
+
+    private void flushLoop() {
+
+        while (running) {
+            try {
+                Thread.sleep(flushInterval);
+            } catch (InterruptedException e) {
+                if (!running) break;
+            }
+
+            flush();
+        }
+    }
+
+    private synchronized void flush() {
+
+        if (pending.isEmpty()) return;
+
+        List<PortfolioDelta> deltas = new ArrayList<>(pending.size());
+
+        // Removing a key is atomic with the changes made to it, so each change ends up in exactly one flush
+        for (String key : pending.keySet()) {
+            PortfolioDelta delta = pending.remove(key);
+            if (delta != null) deltas.add(delta);
+        }
+
+        // A change made after midnight has to be written after the ones of the previous day
+        deltas.sort(Comparator.comparingInt(PortfolioDelta::getDay));
+
+        writing = deltas;
+
+        try {
+            DatabaseManager.get().getDatabase().savePortfolioDeltas(deltas);
+            written.addAndGet(deltas.size());
+        } catch (Exception e) {
+            // Put back so they are retried on the next flush, under any change made while writing
+            for (PortfolioDelta delta : deltas)
+                pending.merge(PortfolioDelta.key(delta.getUuid(), delta.getIdentifier(), delta.getDay()), delta, PortfolioDelta::mergeOlder);
+
+            failed.addAndGet(deltas.size());
+            Nascraft.getInstance().getLogger().warning("Error writing " + deltas.size() + " portfolio changes: " + e.getMessage());
+        } finally {
+            writing = new ArrayList<>();
+        }
+    }
+
+    public void shutdown() {
+
+        running = false;
+        writer.interrupt();
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        Nascraft.getInstance().getLogger().info("Portfolio writer: " + written.get() + " changes written, " + failed.get() + " failed.");
+    }
+
+    public int getPending() { return pending.size(); }
+
+}
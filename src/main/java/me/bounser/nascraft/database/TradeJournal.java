@@ -0,0 +1,148 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.Trade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TradeJournal {
+
+    private final BlockingQueue<Trade> queue;
+
+    private final int batchSize;
+    private final int flushInterval;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    private static TradeJournal instance;
+
+    public static TradeJournal getInstance() { return instance == null ? instance = new TradeJournal() : instance; }
+
+    private TradeJournal() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, Config.getInstance().getTradeJournalCapacity()));
+        batchSize = Math.max(1, Config.getInstance().getTradeJournalBatchSize());
+        flushInterval = Math.max(10, Config.getInstance().getTradeJournalFlushInterval());
+
+        writer = new Thread(this::drainLoop, "Nascraft-TradeJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void log(Trade trade) {
+
+        if (running && queue.offer(trade)) {
+            enqueued.incrementAndGet();
+            maxDepth.accumulateAndGet(queue.size(), Math::max);
+            return;
+        }
+
+        // Queue saturated or journal closed: write on the calling thread so no trade is lost.
+        overflowed.incrementAndGet();
+        List<Trade> single = new ArrayList<>(1);
+        single.add(trade);
+        write(single);
+    }
+
+    public void log(List<Trade> trades) {
+
+        List<Trade> rejected = null;
+
+        for (Trade trade : trades) {
+            if (running && queue.offer(trade)) {
+                enqueued.incrementAndGet();
+                continue;
+            }
+            if (rejected == null) rejected = new ArrayList<>();
+            rejected.add(trade);
+        }
+
+        maxDepth.accumulateAndGet(queue.size(), Math::max);
+
+        if (rejected != null) {
+            overflowed.addAndGet(rejected.size());
+            write(rejected);
+        }
+    }
+
+    private void drainLoop() {
+
+        List<Trade> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Trade first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                write(batch);
+                batch.clear();
+
+            } catch (InterruptedException e) {
+                if (!running) break;
+            }
+        }
+    }
+
+    private void write(List<Trade> trades) {
+        try {
+            DatabaseManager.get().getDatabase().saveTrades(trades);
+            written.addAndGet(trades.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(trades.size());
+            Nascraft.getInstance().getLogger().warning("Error writing " + trades.size() + " trades: " + e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+
+        running = false;
+        writer.interrupt();
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Trade> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+
+        for (int from = 0; from < remaining.size(); from += batchSize)
+            write(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+
+        Nascraft.getInstance().getLogger().info("Trade journal: " + written.get() + " trades written in " + batches.get() + " batches, "
+                + overflowed.get() + " written directly, " + failed.get() + " failed, max queue depth " + maxDepth.get() + ".");
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+
+    public int getMaxQueueDepth() { return maxDepth.get(); }
+
+    public long getEnqueued() { return enqueued.get(); }
+
+    public long getWritten() { return written.get(); }
+
+    public long getOverflowed() { return overflowed.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+}
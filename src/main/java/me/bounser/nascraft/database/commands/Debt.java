@@ -5,66 +5,68 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class Debt {
 
-    public static void increaseDebt(Connection connection, UUID uuid, double debt) {
+    /**
+     * Writes the current debt and lifetime interests of the given players in one transaction.
+     * A debt of zero or less removes the loan.
+     */
+    public static void saveDebts(Connection connection, String loansTable, String interestsTable, Map<UUID, Double> debts, Map<UUID, Double> interests) {
 
-        try {
-            String sql1 = "SELECT debt FROM loans WHERE uuid=?;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            ResultSet resultSet = prep1.executeQuery();
-
-            if(resultSet.next()) {
-                String sql2 = "UPDATE loans SET debt=? WHERE uuid=?;";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setDouble(1, debt + resultSet.getDouble("debt"));
-                prep2.setString(2, uuid.toString());
-                prep2.executeUpdate();
-            } else {
-                String sql2 = "INSERT INTO loans (uuid, debt) VALUES (?,?);";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setDouble(2, debt);
-                prep2.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    public static void decreaseDebt(Connection connection, UUID uuid, double debt) {
+        if (debts.isEmpty() && interests.isEmpty()) return;
 
         try {
-            String sql1 = "SELECT debt FROM loans WHERE uuid=?;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            ResultSet resultSet = prep1.executeQuery();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
 
-            if(resultSet.next()) {
+            try (PreparedStatement updateDebt = connection.prepareStatement("UPDATE " + loansTable + " SET debt=? WHERE uuid=?;");
+                 PreparedStatement insertDebt = connection.prepareStatement("INSERT INTO " + loansTable + " (uuid, debt) VALUES (?,?);");
+                 PreparedStatement deleteDebt = connection.prepareStatement("DELETE FROM " + loansTable + " WHERE uuid=?;");
+                 PreparedStatement updateInterest = connection.prepareStatement("UPDATE " + interestsTable + " SET paid=? WHERE uuid=?;");
+                 PreparedStatement insertInterest = connection.prepareStatement("INSERT INTO " + interestsTable + " (uuid, paid) VALUES (?,?);")) {
 
-                if (resultSet.getDouble("debt") - debt <= 0) {
+                for (Map.Entry<UUID, Double> entry : debts.entrySet()) {
 
-                    String sql2 = "DELETE FROM loans WHERE uuid=?;";
-                    PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                    prep2.setString(1, uuid.toString());
-                    prep2.executeUpdate();
+                    if (entry.getValue() <= 0) {
+                        deleteDebt.setString(1, entry.getKey().toString());
+                        deleteDebt.executeUpdate();
+                        continue;
+                    }
 
-                } else {
-                    String sql2 = "UPDATE loans SET debt=? WHERE uuid=?;";
-                    PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                    prep2.setDouble(1, resultSet.getDouble("debt") - debt);
-                    prep2.setString(2, uuid.toString());
-                    prep2.executeUpdate();
+                    upsert(updateDebt, insertDebt, entry.getKey(), entry.getValue());
                 }
+
+                for (Map.Entry<UUID, Double> entry : interests.entrySet())
+                    upsert(updateInterest, insertInterest, entry.getKey(), entry.getValue());
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
+
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static void upsert(PreparedStatement update, PreparedStatement insert, UUID uuid, double value) throws SQLException {
+
+        update.setDouble(1, value);
+        update.setString(2, uuid.toString());
+
+        if (update.executeUpdate() > 0) return;
+
+        insert.setString(1, uuid.toString());
+        insert.setDouble(2, value);
+        insert.executeUpdate();
+    }
+
     public static double getDebt(Connection connection, UUID uuid) {
 
         try {
@@ -107,32 +109,6 @@ public class Debt {
         }
     }
 
-    public static void addInterestPaid(Connection connection, UUID uuid, Double interest) {
-
-        try {
-            String sql1 = "SELECT paid FROM interests WHERE uuid=?;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            ResultSet resultSet = prep1.executeQuery();
-
-            if(resultSet.next()) {
-                String sql2 = "UPDATE interests SET paid=? WHERE uuid=?;";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setDouble(1, interest + resultSet.getDouble("paid"));
-                prep2.setString(2, uuid.toString());
-                prep2.executeUpdate();
-            } else {
-                String sql2 = "INSERT INTO interests (uuid, paid) VALUES (?,?);";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setDouble(2, interest);
-                prep2.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     public static HashMap<UUID, Double> getUUIDAndInterestsPaid(Connection connection) {
         HashMap<UUID, Double> payers = new HashMap<>();
 
@@ -1,189 +1,133 @@
 package me.bounser.nascraft.database.commands;
 
-import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.PriceSeries;
+import me.bounser.nascraft.market.unit.stats.Resolution;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 public class HistorialData {
 
-    public static void saveDayPrice(Connection connection, Item item, Instant instant) {
-        try {
-            String insert = "INSERT INTO prices_day (day, identifier, date, price, volume) VALUES (?,?,?,?,?);";
-
-            PreparedStatement insertStatement = connection.prepareStatement(insert);
-
-            insertStatement.setInt(1, NormalisedDate.getDays());
-            insertStatement.setString(2, item.getIdentifier());
-            insertStatement.setString(3, instant.getLocalDateTime().toString());
-            insertStatement.setDouble(4, instant.getPrice());
-            insertStatement.setInt(5, instant.getVolume());
-
-            insertStatement.executeUpdate();
-
-            String deleteQuery = "DELETE FROM prices_day WHERE day < ?;";
-
-            PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery);
+    public static void saveHistory(Connection connection, List<HistoryEntry> entries) {
 
-            deleteStatement.setInt(1, NormalisedDate.getDays()-2);
-
-            deleteStatement.executeUpdate();
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+        if (entries.isEmpty()) return;
 
-    public static void saveMonthPrice(Connection connection, Item item, Instant instant) {
         try {
-            String select = "SELECT date FROM prices_month WHERE identifier=? ORDER BY id DESC LIMIT 1;";
-
-            PreparedStatement preparedStatement = connection.prepareStatement(select);
-
-            preparedStatement.setString(1, item.getIdentifier());
-
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            if (!resultSet.next()) {
-                String insert = "INSERT INTO prices_month (day, date, identifier, price, volume) VALUES (?,?,?,?,?);";
-
-                PreparedStatement insertStatement = connection.prepareStatement(insert);
-
-                insertStatement.setInt(1, NormalisedDate.getDays());
-                insertStatement.setString(2, instant.getLocalDateTime().toString());
-                insertStatement.setString(3, item.getIdentifier());
-                insertStatement.setDouble(4, instant.getPrice());
-                insertStatement.setInt(5, instant.getVolume());
-
-                insertStatement.executeUpdate();
-            } else if (LocalDateTime.parse(resultSet.getString("date")).isBefore(LocalDateTime.now().minusHours(4))) {
-                String selectDay = "SELECT date, price, volume FROM prices_day WHERE identifier=? ORDER BY id DESC LIMIT 48;";
-
-                PreparedStatement preparedStatementDay = connection.prepareStatement(selectDay);
-
-                preparedStatementDay.setString(1, item.getIdentifier());
-
-                ResultSet resultSetDay = preparedStatementDay.executeQuery();
-
-                if (!resultSetDay.next()) {
-                    String insert = "INSERT INTO prices_month (day, date, identifier, price, volume) VALUES (?,?,?,?,?);";
-
-                    PreparedStatement insertStatement = connection.prepareStatement(insert);
-
-                    insertStatement.setInt(1, NormalisedDate.getDays());
-                    insertStatement.setString(2, instant.getLocalDateTime().toString());
-                    insertStatement.setString(3, item.getIdentifier());
-                    insertStatement.setDouble(4, instant.getPrice());
-                    insertStatement.setInt(5, instant.getVolume());
-
-                    insertStatement.executeUpdate();
-                } else {
-                    double averagePrice = 0;
-                    int totalVolume = 0;
-                    int i = 0;
-
-                    do {
-                        if (LocalDateTime.parse(resultSetDay.getString("date")).isAfter(LocalDateTime.now().minusHours(4))) {
-                            i++;
-                            averagePrice += resultSetDay.getDouble("price");
-                            totalVolume += resultSetDay.getInt("volume");
-                        }
-                    } while (resultSetDay.next());
-
-                    if (averagePrice == 0) return;
-
-                    String insert = "INSERT INTO prices_month (day, date, identifier, price, volume) VALUES (?,?,?,?,?);";
-
-                    PreparedStatement insertStatement = connection.prepareStatement(insert);
-
-                    insertStatement.setInt(1, NormalisedDate.getDays());
-                    insertStatement.setString(2, LocalDateTime.now().minusHours(2).toString());
-                    insertStatement.setString(3, item.getIdentifier());
-                    insertStatement.setDouble(4, averagePrice/i);
-                    insertStatement.setInt(5, totalVolume);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try {
+                PreparedStatement dayStatement = connection.prepareStatement(
+                        "INSERT INTO prices_day (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) VALUES (?,?,?,?,?,?,?,?,?,?);");
+                // 4 hour and daily buckets are written while in progress, so their row is updated until the bucket closes.
+                PreparedStatement monthUpdate = connection.prepareStatement(
+                        "UPDATE prices_month SET price=?, volume=?, open_price=?, high_price=?, low_price=?, close_price=? WHERE identifier=? AND epoch=?;");
+                PreparedStatement monthStatement = connection.prepareStatement(
+                        "INSERT INTO prices_month (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) SELECT ?,?,?,?,?,?,?,?,?,? " +
+                                "WHERE NOT EXISTS (SELECT 1 FROM prices_month WHERE identifier=? AND epoch=?);");
+                PreparedStatement historyUpdate = connection.prepareStatement(
+                        "UPDATE prices_history SET price=?, volume=?, open_price=?, high_price=?, low_price=?, close_price=? WHERE identifier=? AND day=?;");
+                PreparedStatement historyStatement = connection.prepareStatement(
+                        "INSERT INTO prices_history (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) SELECT ?,?,?,?,?,?,?,?,?,? " +
+                                "WHERE NOT EXISTS (SELECT 1 FROM prices_history WHERE identifier=? AND day=?);");
+
+                boolean day = false, month = false, history = false;
+
+                for (HistoryEntry entry : entries) {
+
+                    PreparedStatement statement;
+                    Candle candle = entry.getCandle();
+
+                    switch (entry.getResolution()) {
+                        case FIVE_MINUTES: statement = dayStatement; day = true; break;
+                        case FOUR_HOURS:
+                            statement = monthStatement; month = true;
+                            bindUpdate(monthUpdate, entry, candle);
+                            monthUpdate.setLong(8, candle.getEpoch());
+                            monthUpdate.addBatch();
+                            statement.setString(11, entry.getItem().getIdentifier());
+                            statement.setLong(12, candle.getEpoch());
+                            break;
+                        default:
+                            statement = historyStatement; history = true;
+                            bindUpdate(historyUpdate, entry, candle);
+                            historyUpdate.setInt(8, entry.getDay());
+                            historyUpdate.addBatch();
+                            statement.setString(11, entry.getItem().getIdentifier());
+                            statement.setInt(12, entry.getDay());
+                    }
 
-                    insertStatement.executeUpdate();
+                    statement.setInt(1, entry.getDay());
+                    statement.setString(2, entry.getLocalDateTime().toString());
+                    statement.setString(3, entry.getItem().getIdentifier());
+                    statement.setDouble(4, candle.getAverage());
+                    statement.setInt(5, candle.getVolume());
+                    statement.setLong(6, candle.getEpoch());
+                    statement.setDouble(7, candle.getOpen());
+                    statement.setDouble(8, candle.getHigh());
+                    statement.setDouble(9, candle.getLow());
+                    statement.setDouble(10, candle.getClose());
+                    statement.addBatch();
                 }
 
-                String deleteQuery = "DELETE FROM prices_month WHERE day < ?;";
-
-                PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery);
+                if (day) dayStatement.executeBatch();
+                if (month) {
+                    monthUpdate.executeBatch();
+                    monthStatement.executeBatch();
+                }
+                if (history) {
+                    historyUpdate.executeBatch();
+                    historyStatement.executeBatch();
+                }
 
-                deleteStatement.setInt(1, NormalisedDate.getDays()-31);
-                deleteStatement.executeUpdate();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public static void saveHistoryPrices(Connection connection, Item item, Instant instant) {
-        try {
-            String select = "SELECT date FROM prices_history WHERE day=? AND identifier=?;";
-
-            PreparedStatement preparedStatement = connection.prepareStatement(select);
-
-            preparedStatement.setInt(1, NormalisedDate.getDays());
-            preparedStatement.setString(2, item.getIdentifier());
-
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            if (!resultSet.next()){
-                String selectMonth = "SELECT date, price, volume FROM prices_month WHERE identifier=? ORDER BY id DESC LIMIT 6;";
-
-                PreparedStatement preparedStatementMonth = connection.prepareStatement(selectMonth);
-
-                preparedStatementMonth.setString(1, item.getIdentifier());
-
-                ResultSet resultSetMonth = preparedStatementMonth.executeQuery();
-
-                if (!resultSetMonth.next()) {
-                    String insert = "INSERT INTO prices_history (day, date, identifier, price, volume) VALUES (?,?,?,?,?);";
-
-                    PreparedStatement insertStatement = connection.prepareStatement(insert);
-
-                    insertStatement.setInt(1, NormalisedDate.getDays());
-                    insertStatement.setString(2, instant.getLocalDateTime().toString());
-                    insertStatement.setString(3, item.getIdentifier());
-                    insertStatement.setDouble(4, instant.getPrice());
-                    insertStatement.setInt(5, instant.getVolume());
-
-                    insertStatement.executeUpdate();
-                } else {
-                    double averagePrice = 0;
-                    int totalVolume = 0;
-                    int i = 0;
-
-                    do {
-                        if (LocalDateTime.parse(resultSetMonth.getString("date")).isAfter(LocalDateTime.now().minusHours(24))) {
-                            i++;
-                            averagePrice += resultSetMonth.getDouble("price");
-                            totalVolume += resultSetMonth.getInt("volume");
-                        }
-                    } while (resultSetMonth.next());
-
-                    if (i == 0) return;
+    // Binds everything but the last parameter, which identifies the row.
+    public static void bindUpdate(PreparedStatement statement, HistoryEntry entry, Candle candle) throws SQLException {
+        statement.setDouble(1, candle.getAverage());
+        statement.setInt(2, candle.getVolume());
+        statement.setDouble(3, candle.getOpen());
+        statement.setDouble(4, candle.getHigh());
+        statement.setDouble(5, candle.getLow());
+        statement.setDouble(6, candle.getClose());
+        statement.setString(7, entry.getItem().getIdentifier());
+    }
 
-                    String insert = "INSERT INTO prices_history (day, date, identifier, price, volume) VALUES (?,?,?,?,?);";
+    /**
+     * Deletes at most limit rows of the given table older than the given day.
+     * @return amount of rows deleted
+     */
+    public static int prunePrices(Connection connection, String table, int beforeDay, int limit) {
+        try {
+            String delete = "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table + " WHERE day < ? LIMIT ?);";
 
-                    PreparedStatement insertStatement = connection.prepareStatement(insert);
+            PreparedStatement statement = connection.prepareStatement(delete);
 
-                    insertStatement.setInt(1, NormalisedDate.getDays());
-                    insertStatement.setString(2, LocalDateTime.now().minusHours(12).toString());
-                    insertStatement.setString(3, item.getIdentifier());
-                    insertStatement.setDouble(4, averagePrice/i);
-                    insertStatement.setInt(5, totalVolume);
+            statement.setInt(1, beforeDay);
+            statement.setInt(2, limit);
 
-                    insertStatement.executeUpdate();
-                }
-            }
+            return statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -376,6 +320,64 @@ public class HistorialData {
         return prices;
     }
 
+    public static List<Candle> getCandles(Connection connection, Item item, Resolution resolution, int limit) {
+        List<Candle> candles = new ArrayList<>();
+
+        try {
+            String columns = "day, date, epoch, price, volume, open_price, high_price, low_price, close_price";
+            String select;
+
+            switch (resolution) {
+                case FIVE_MINUTES:
+                    select = "SELECT " + columns + " FROM prices_day WHERE identifier=? ORDER BY id DESC LIMIT ?;";
+                    break;
+                case FOUR_HOURS:
+                    select = "SELECT " + columns + " FROM prices_month WHERE identifier=? ORDER BY id DESC LIMIT ?;";
+                    break;
+                default:
+                    select = "SELECT " + columns + " FROM prices_history WHERE identifier=? ORDER BY day DESC LIMIT ?;";
+            }
+
+            PreparedStatement preparedStatement = connection.prepareStatement(select);
+
+            preparedStatement.setString(1, item.getIdentifier());
+            preparedStatement.setInt(2, limit);
+
+            ResultSet resultSet = preparedStatement.executeQuery();
+
+            while (resultSet.next()) candles.add(toCandle(resultSet, resolution));
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        Collections.reverse(candles);
+
+        return candles;
+    }
+
+    /**
+     * Reads a price history row. Rows written before epochs and candles were stored fall back to the date, or day, and the average price.
+     */
+    public static Candle toCandle(ResultSet resultSet, Resolution resolution) throws SQLException {
+
+        long epoch = resultSet.getLong("epoch");
+
+        if (resultSet.wasNull()) {
+            epoch = PriceSeries.toEpoch(resolution == Resolution.DAILY ?
+                    LocalDateTime.of(2023, 1, 1, 1, 1).plusDays(resultSet.getInt("day")) :
+                    LocalDateTime.parse(resultSet.getString("date")));
+        }
+
+        double price = resultSet.getDouble("price");
+        int volume = resultSet.getInt("volume");
+
+        double open = resultSet.getDouble("open_price");
+        if (resultSet.wasNull()) return Candle.flat(epoch, price, volume);
+
+        return new Candle(epoch, open, resultSet.getDouble("high_price"), resultSet.getDouble("low_price"), resultSet.getDouble("close_price"), price, volume);
+    }
+
     public static Double getPriceOfDay(Connection connection, String identifier, int day) {
         try {
             String select = "SELECT price FROM prices_history WHERE identifier=? AND day=?;";
@@ -8,6 +8,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 public class ItemProperties {
 
@@ -52,6 +53,41 @@ public class ItemProperties {
         }
     }
 
+    public static void saveItems(Connection connection, List<Item> items) {
+
+        if (items.isEmpty()) return;
+
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try {
+                String sql = "REPLACE INTO items (lastprice, lowest, highest, stock, taxes, identifier) VALUES (?, ?, ?, ?, ?, ?);";
+                PreparedStatement prep = connection.prepareStatement(sql);
+
+                for (Item item : items) {
+                    prep.setDouble(1, item.getPrice().getValue());
+                    prep.setDouble(2, item.getPrice().getHistoricalLow());
+                    prep.setDouble(3, item.getPrice().getHistoricalHigh());
+                    prep.setDouble(4, item.getPrice().getStock());
+                    prep.setDouble(5, item.getCollectedTaxes());
+                    prep.setString(6, item.getIdentifier());
+                    prep.addBatch();
+                }
+
+                prep.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static void retrieveItem(Connection connection, Item item) {
 
         try {
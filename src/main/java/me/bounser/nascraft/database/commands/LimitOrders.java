@@ -1,77 +1,87 @@
 package me.bounser.nascraft.database.commands;
 
+import me.bounser.nascraft.database.commands.resources.LimitOrderEvent;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.limitorders.LimitOrder;
 import me.bounser.nascraft.market.limitorders.LimitOrdersManager;
 import me.bounser.nascraft.market.limitorders.OrderType;
-import me.bounser.nascraft.market.unit.Item;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public class LimitOrders {
 
-    public static void addLimitOrder(Connection connection, UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
+    /**
+     * Applies a batch of limit order changes in a single transaction, in the order they happened.
+     */
+    public static void saveLimitOrderEvents(Connection connection, String table, List<LimitOrderEvent> events) {
 
-        try {
-            String sql = "INSERT INTO limit_orders (expiration, uuid, identifier, type, price, to_complete, completed, cost) VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
-
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setString(1, expiration.toString());
-            prep.setString(2, uuid.toString());
-            prep.setString(3, item.getIdentifier());
-            prep.setInt(4, type);
-            prep.setDouble(5, price);
-            prep.setInt(6, amount);
-            prep.setInt(7, 0);
-            prep.setDouble(8, 0);
-            prep.executeUpdate();
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    public static void updateLimitOrder(Connection connection, UUID uuid, Item item, int completed, double cost) {
+        if (events == null || events.isEmpty()) return;
 
         try {
-            String sql = "UPDATE limit_orders SET completed=?, cost=? WHERE uuid=? AND identifier=?;";
-
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setInt(1, completed);
-            prep.setDouble(2, cost);
-            prep.setString(3, uuid.toString());
-            prep.setString(4, item.getIdentifier());
-            prep.executeUpdate();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (expiration, uuid, identifier, type, price, to_complete, completed, cost) VALUES (?, ?, ?, ?, ?, ?, ?, ?);");
+                 PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET completed=?, cost=? WHERE uuid=? AND identifier=?;");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE uuid = ? AND identifier = ?;")) {
+
+                for (LimitOrderEvent event : events) {
+
+                    switch (event.getType()) {
+
+                        case PLACE:
+                            insert.setString(1, event.getExpiration().toString());
+                            insert.setString(2, event.getUuid().toString());
+                            insert.setString(3, event.getIdentifier());
+                            insert.setInt(4, event.getOrderType());
+                            insert.setDouble(5, event.getPrice());
+                            insert.setInt(6, event.getToComplete());
+                            insert.setInt(7, event.getCompleted());
+                            insert.setDouble(8, event.getCost());
+                            insert.executeUpdate();
+                            break;
+
+                        case FILL:
+                            update.setInt(1, event.getCompleted());
+                            update.setDouble(2, event.getCost());
+                            update.setString(3, event.getUuid().toString());
+                            update.setString(4, event.getIdentifier());
+                            update.executeUpdate();
+                            break;
+
+                        case CANCEL:
+                            delete.setString(1, event.getUuid().toString());
+                            delete.setString(2, event.getIdentifier());
+                            delete.executeUpdate();
+                            break;
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public static void removeLimitOrder(Connection connection, String uuid, String identifier) {
-
-        try {
-            String sql = "DELETE FROM limit_orders WHERE uuid = ? AND identifier = ?;";
-
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setString(1, uuid);
-            prep.setString(2, identifier);
-            prep.executeUpdate();
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    public static void retrieveLimitOrders(Connection connection) { retrieveLimitOrders(connection, "limit_orders"); }
 
-    public static void retrieveLimitOrders(Connection connection) {
+    public static void retrieveLimitOrders(Connection connection, String table) {
 
         try {
-            String sql = "SELECT expiration, uuid, identifier, type, cost, price, to_complete, completed FROM limit_orders;";
+            String sql = "SELECT expiration, uuid, identifier, type, cost, price, to_complete, completed FROM " + table + ";";
             PreparedStatement prep = connection.prepareStatement(sql);
             ResultSet resultSet = prep.executeQuery();
 
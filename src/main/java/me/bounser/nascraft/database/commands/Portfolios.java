@@ -1,6 +1,7 @@
 package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
 
@@ -9,56 +10,40 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
 
 public class Portfolios {
 
-    public static void updateItemPortfolio(Connection connection, UUID uuid, Item item, int quantity) {
-        try {
-            String sql1 = "SELECT amount FROM portfolios WHERE uuid=? AND identifier=?;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            prep1.setString(2, item.getIdentifier());
-            ResultSet resultSet = prep1.executeQuery();
-
-            if(resultSet.next()) {
-                String sql2 = "UPDATE portfolios SET amount=? WHERE uuid=? AND identifier=?;";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setInt(1, quantity);
-                prep2.setString(2, uuid.toString());
-                prep2.setString(3, item.getIdentifier());
-                prep2.executeUpdate();
-            } else {
-                String sql2 = "INSERT INTO portfolios (uuid, identifier, amount) VALUES (?,?,?);";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setString(2, item.getIdentifier());
-                prep2.setInt(3, quantity);
-                prep2.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    public static void saveHoldings(Connection connection, String table, List<PortfolioDelta> deltas) {
 
-    public static void removeItemPortfolio(Connection connection, UUID uuid, Item item) {
-        try {
-            String sql = "DELETE FROM portfolios WHERE uuid=? AND identifier=?;";
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setString(1, uuid.toString());
-            prep.setString(2, item.getIdentifier());
-            prep.executeUpdate();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET amount=? WHERE uuid=? AND identifier=?;");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (uuid, identifier, amount) VALUES (?,?,?);");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE uuid=? AND identifier=?;")) {
+
+            for (PortfolioDelta delta : deltas) {
+
+                if (!delta.hasAmount()) continue;
+
+                if (delta.getAmount() <= 0) {
+                    delete.setString(1, delta.getUuid().toString());
+                    delete.setString(2, delta.getIdentifier());
+                    delete.executeUpdate();
+                    continue;
+                }
+
+                update.setInt(1, delta.getAmount());
+                update.setString(2, delta.getUuid().toString());
+                update.setString(3, delta.getIdentifier());
+
+                if (update.executeUpdate() > 0) continue;
+
+                insert.setString(1, delta.getUuid().toString());
+                insert.setString(2, delta.getIdentifier());
+                insert.setInt(3, delta.getAmount());
+                insert.executeUpdate();
+            }
 
-    public static void clearPortfolio(Connection connection, UUID uuid) {
-        try {
-            String sql = "DELETE FROM portfolios WHERE uuid=?;";
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setString(1, uuid.toString());
-            prep.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1,98 +1,83 @@
 package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
-import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 
 public class PortfoliosLog {
 
-    public static void logContribution(Connection connection, UUID uuid, Item item, int amount) {
+    /**
+     * The latest row of each item holds the amount and contribution at the end of that day. The changes of
+     * each item are applied to it once, updating the row of the day or starting it.
+     */
+    public static void saveLog(Connection connection, List<PortfolioDelta> deltas) {
 
-        try {
-            String sql1 = "SELECT contribution, amount, day FROM portfolios_log WHERE uuid=? AND identifier=? ORDER BY day DESC LIMIT 1;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            prep1.setString(2, item.getIdentifier());
-            ResultSet resultSet = prep1.executeQuery();
+        try (PreparedStatement select = connection.prepareStatement("SELECT contribution, amount, day FROM portfolios_log WHERE uuid=? AND identifier=? ORDER BY day DESC LIMIT 1;");
+             PreparedStatement update = connection.prepareStatement("UPDATE portfolios_log SET contribution=?, amount=? WHERE uuid=? AND identifier=? AND day=?;");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO portfolios_log (uuid, identifier, amount, contribution, day) VALUES (?,?,?,?,?);");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM portfolios_log WHERE uuid=? AND identifier=? AND day=?;")) {
 
-            if (resultSet.next()) {
-                if (resultSet.getInt("day") == NormalisedDate.getDays()) {
-                    String sql2 = "UPDATE portfolios_log SET contribution=?, amount=? WHERE uuid=? AND identifier=? AND day=?;";
-                    PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                    prep2.setDouble(1, item.getPrice().getValue()*amount + resultSet.getDouble("contribution"));
-                    prep2.setInt(2, amount + resultSet.getInt("amount"));
-                    prep2.setString(3, uuid.toString());
-                    prep2.setString(4, item.getIdentifier());
-                    prep2.setInt(5, NormalisedDate.getDays());
-                    prep2.executeUpdate();
-                } else {
-                    String sql2 = "INSERT INTO portfolios_log (uuid, identifier, amount, contribution, day) VALUES (?,?,?,?,?);";
-                    PreparedStatement prep2 = connection.prepareStatement(sql2);
-                    prep2.setString(1, uuid.toString());
-                    prep2.setString(2, item.getIdentifier());
-                    prep2.setInt(3, amount + resultSet.getInt("amount"));
-                    prep2.setDouble(4, item.getPrice().getValue()*amount + resultSet.getDouble("contribution"));
-                    prep2.setInt(5, NormalisedDate.getDays());
-                    prep2.executeUpdate();
-                }
-            } else {
-                String sql2 = "INSERT INTO portfolios_log (uuid, identifier, amount, contribution, day) VALUES (?,?,?,?,?);";
-                PreparedStatement prep2 = connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setString(2, item.getIdentifier());
-                prep2.setInt(3, amount);
-                prep2.setDouble(4, item.getPrice().getValue()*amount);
-                prep2.setInt(5, NormalisedDate.getDays());
-                prep2.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-    }
+            for (PortfolioDelta delta : deltas) {
 
-    public static void logWithdraw(Connection connection, UUID uuid, Item item, int amount) {
+                if (!delta.hasLog()) continue;
 
-        try {
-            String sql1 = "SELECT contribution, amount, day FROM portfolios_log WHERE uuid=? AND identifier=? ORDER BY day DESC LIMIT 1;";
-            PreparedStatement prep1 =  connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            prep1.setString(2, item.getIdentifier());
-            ResultSet resultSet = prep1.executeQuery();
+                int amount = 0;
+                double contribution = 0;
+                boolean existsToday = false;
+
+                select.setString(1, delta.getUuid().toString());
+                select.setString(2, delta.getIdentifier());
 
-            if (!resultSet.next()) return;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (resultSet.next()) {
+                        amount = resultSet.getInt("amount");
+                        contribution = resultSet.getDouble("contribution");
+                        existsToday = resultSet.getInt("day") == delta.getDay();
+                    }
+                }
 
-            if (resultSet.getInt("amount") == amount || resultSet.getInt("amount") < amount) {
-                String sql = "DELETE FROM portfolios_log WHERE uuid=? AND identifier=? AND day=?;";
-                PreparedStatement prep = connection.prepareStatement(sql);
-                prep.setString(1, uuid.toString());
-                prep.setString(2, item.getIdentifier());
-                prep.setInt(3, NormalisedDate.getDays());
-                prep.executeUpdate();
+                amount += delta.getDeposited();
+                contribution += delta.getDepositedValue();
 
-            } else if (resultSet.getInt("day") == NormalisedDate.getDays()) {
+                if (delta.getWithdrawn() > 0) {
 
-                String sql2 = "UPDATE portfolios_log SET amount=?, contribution=? WHERE uuid=? AND identifier=?;";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setInt(1, resultSet.getInt("amount") - amount);
-                prep2.setDouble(2, amount * resultSet.getDouble("contribution") / (float) resultSet.getInt("amount"));
-                prep2.setString(3, uuid.toString());
-                prep2.setString(4, item.getIdentifier());
-                prep2.executeUpdate();
+                    if (amount <= delta.getWithdrawn()) {
+                        if (existsToday) {
+                            delete.setString(1, delta.getUuid().toString());
+                            delete.setString(2, delta.getIdentifier());
+                            delete.setInt(3, delta.getDay());
+                            delete.executeUpdate();
+                        }
+                        continue;
+                    }
 
-            } else {
-                String sql2 = "INSERT INTO portfolios_log (uuid, identifier, amount, contribution) VALUES (?,?,?,?);";
-                PreparedStatement prep2 =  connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setString(2, item.getIdentifier());
-                prep2.setInt(3, resultSet.getInt("amount") - amount);
-                prep2.setDouble(4, amount * resultSet.getDouble("contribution") / (float) resultSet.getInt("amount"));
-                prep2.executeUpdate();
+                    // What is left keeps its share of the contribution
+                    contribution = contribution * (amount - delta.getWithdrawn()) / amount;
+                    amount -= delta.getWithdrawn();
+                }
+
+                if (existsToday) {
+                    update.setDouble(1, contribution);
+                    update.setInt(2, amount);
+                    update.setString(3, delta.getUuid().toString());
+                    update.setString(4, delta.getIdentifier());
+                    update.setInt(5, delta.getDay());
+                    update.executeUpdate();
+                } else {
+                    insert.setString(1, delta.getUuid().toString());
+                    insert.setString(2, delta.getIdentifier());
+                    insert.setInt(3, amount);
+                    insert.setDouble(4, contribution);
+                    insert.setInt(5, delta.getDay());
+                    insert.executeUpdate();
+                }
             }
 
         } catch (SQLException e) {
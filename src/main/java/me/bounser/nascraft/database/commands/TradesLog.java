@@ -38,6 +38,56 @@ public class TradesLog {
         }
     }
 
+    public static void saveTrades(Connection connection, List<Trade> trades) {
+
+        if (trades == null || trades.isEmpty()) return;
+
+        // SQLite limits the amount of bound parameters per statement (999 on older versions).
+        int rowsPerStatement = 100;
+
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try {
+                for (int from = 0; from < trades.size(); from += rowsPerStatement) {
+
+                    List<Trade> chunk = trades.subList(from, Math.min(from + rowsPerStatement, trades.size()));
+
+                    StringBuilder sql = new StringBuilder("INSERT INTO trade_log (uuid, day, date, identifier, amount, value, buy, discord) VALUES ");
+                    for (int i = 0; i < chunk.size(); i++)
+                        sql.append(i == 0 ? "(?,?,?,?,?,?,?,?)" : ",(?,?,?,?,?,?,?,?)");
+
+                    try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+
+                        int index = 1;
+                        for (Trade trade : chunk) {
+                            statement.setString(index++, trade.getUuid().toString());
+                            statement.setInt(index++, NormalisedDate.getDays(trade.getDate()));
+                            statement.setString(index++, NormalisedDate.formatDateTime(trade.getDate()));
+                            statement.setString(index++, trade.getItem().getIdentifier());
+                            statement.setInt(index++, trade.getAmount());
+                            statement.setFloat(index++, RoundUtils.round(trade.getValue()));
+                            statement.setBoolean(index++, trade.isBuy());
+                            statement.setBoolean(index++, trade.throughDiscord());
+                        }
+
+                        statement.executeUpdate();
+                    }
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static List<Trade> retrieveTrades(Connection connection, UUID uuid, int offset, int limit) {
 
         if (uuid == null) return null;
@@ -0,0 +1,53 @@
+package me.bounser.nascraft.database.commands.resources;
+
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.PriceSeries;
+import me.bounser.nascraft.market.unit.stats.Resolution;
+
+import java.time.LocalDateTime;
+
+/**
+ * A bucket of the price rollup. FIVE_MINUTES buckets are stored in prices_day,
+ * FOUR_HOURS in prices_month and DAILY in prices_history. Open entries are the 4 hour and daily buckets
+ * still in progress, stored so today's row exists before the day ends and replaced once the bucket closes.
+ */
+public class HistoryEntry {
+
+    private final Item item;
+    private final Resolution resolution;
+
+    private final long start;
+
+    private final Candle candle;
+
+    private final boolean open;
+
+    public HistoryEntry(Item item, Resolution resolution, long start, Candle candle) {
+        this(item, resolution, start, candle, false);
+    }
+
+    public HistoryEntry(Item item, Resolution resolution, long start, Candle candle, boolean open) {
+        this.item = item;
+        this.resolution = resolution;
+        this.start = start;
+        this.candle = candle;
+        this.open = open;
+    }
+
+    public Item getItem() { return item; }
+
+    public Resolution getResolution() { return resolution; }
+
+    public long getStart() { return start; }
+
+    public Candle getCandle() { return candle; }
+
+    public boolean isOpen() { return open; }
+
+    public long getEpoch() { return candle.getEpoch(); }
+
+    public LocalDateTime getLocalDateTime() { return candle.getLocalDateTime(); }
+
+    public int getDay() { return NormalisedDate.getDays(PriceSeries.toLocalDateTime(start)); }
+}
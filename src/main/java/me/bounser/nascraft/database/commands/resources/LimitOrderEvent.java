@@ -0,0 +1,67 @@
+package me.bounser.nascraft.database.commands.resources;
+
+import me.bounser.nascraft.market.limitorders.LimitOrder;
+import me.bounser.nascraft.market.limitorders.OrderType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Change of state of a limit order, captured when it happens and persisted later.
+ */
+public class LimitOrderEvent {
+
+    public enum Type { PLACE, FILL, CANCEL }
+
+    private final Type type;
+
+    private final UUID uuid;
+    private final String identifier;
+
+    private final LocalDateTime expiration;
+    private final int orderType;
+    private final double price;
+    private final int toComplete;
+    private final int completed;
+    private final double cost;
+
+    private LimitOrderEvent(Type type, LimitOrder order) {
+        this.type = type;
+        this.uuid = order.getOwnerUuid();
+        this.identifier = order.getItem().getIdentifier();
+        this.expiration = order.getExpiration();
+        this.orderType = order.getOrderType() == OrderType.LIMIT_BUY ? 1 : 2;
+        this.price = order.getPrice();
+        this.toComplete = order.getToComplete();
+        this.completed = order.getCompleted();
+        this.cost = order.getCost();
+    }
+
+    public static LimitOrderEvent place(LimitOrder order) { return new LimitOrderEvent(Type.PLACE, order); }
+
+    public static LimitOrderEvent fill(LimitOrder order) { return new LimitOrderEvent(Type.FILL, order); }
+
+    public static LimitOrderEvent cancel(LimitOrder order) { return new LimitOrderEvent(Type.CANCEL, order); }
+
+    public Type getType() { return type; }
+
+    public UUID getUuid() { return uuid; }
+
+    public String getIdentifier() { return identifier; }
+
+    // Orders are stored by owner and item, so that is what identifies them in the log
+    public String getKey() { return uuid + ":" + identifier; }
+
+    public LocalDateTime getExpiration() { return expiration; }
+
+    public int getOrderType() { return orderType; }
+
+    public double getPrice() { return price; }
+
+    public int getToComplete() { return toComplete; }
+
+    public int getCompleted() { return completed; }
+
+    public double getCost() { return cost; }
+
+}
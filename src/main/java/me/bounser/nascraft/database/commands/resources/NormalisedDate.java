@@ -29,6 +29,10 @@ public class NormalisedDate {
         return daysDifferenceInt;
     }
 
+    public static int getDays(LocalDateTime dateTime) {
+        return (int) ChronoUnit.DAYS.between(LocalDate.of(2023, 1, 1), dateTime.toLocalDate());
+    }
+
     public static Date getDateFromDay(int day) {
 
         LocalDate startDate = LocalDate.of(2023, 1, 1);
@@ -0,0 +1,74 @@
+package me.bounser.nascraft.database.commands.resources;
+
+import java.util.UUID;
+
+/**
+ * Every change made to one item of a portfolio during one day since the last write. The amount held is kept
+ * as the latest absolute value, deposits and withdrawals are summed for the contribution log.
+ */
+public class PortfolioDelta {
+
+    private final UUID uuid;
+    private final String identifier;
+    private final int day;
+
+    // Latest amount held, null if only the log changed
+    private Integer amount = null;
+
+    private int deposited = 0;
+    private double depositedValue = 0;
+
+    private int withdrawn = 0;
+    private double withdrawnValue = 0;
+
+    public PortfolioDelta(UUID uuid, String identifier, int day) {
+        this.uuid = uuid;
+        this.identifier = identifier;
+        this.day = day;
+    }
+
+    public static String key(UUID uuid, String identifier, int day) { return uuid + ":" + identifier + ":" + day; }
+
+    public void setAmount(int amount) { this.amount = amount; }
+
+    public void deposit(int amount, double value) {
+        deposited += amount;
+        depositedValue += value;
+    }
+
+    public void withdraw(int amount, double value) {
+        withdrawn += amount;
+        withdrawnValue += value;
+    }
+
+    /**
+     * Adds the changes of an older delta of the same item and day. The newer amount held wins.
+     */
+    public PortfolioDelta mergeOlder(PortfolioDelta older) {
+        if (amount == null) amount = older.amount;
+        deposit(older.deposited, older.depositedValue);
+        withdraw(older.withdrawn, older.withdrawnValue);
+        return this;
+    }
+
+    public UUID getUuid() { return uuid; }
+
+    public String getIdentifier() { return identifier; }
+
+    public int getDay() { return day; }
+
+    public boolean hasAmount() { return amount != null; }
+
+    public int getAmount() { return amount == null ? 0 : amount; }
+
+    public boolean hasLog() { return deposited != 0 || withdrawn != 0; }
+
+    public int getDeposited() { return deposited; }
+
+    public double getDepositedValue() { return depositedValue; }
+
+    public int getWithdrawn() { return withdrawn; }
+
+    public double getWithdrawnValue() { return withdrawnValue; }
+
+}
@@ -0,0 +1,225 @@
+package me.bounser.nascraft.database.migration;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.database.DatabaseType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Versioned schema changes applied on startup after the base tables are created.
+ * Every step is idempotent, so a partially applied version is simply re-run.
+ */
+public class SchemaMigrations {
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+
+            new Migration(1, "Secondary indexes for trades, price history and portfolios")
+                    .index("trade_log", "uuid, id")
+                    .index("trade_log", "identifier, id")
+                    .index("trade_log", "uuid, identifier, id")
+                    .sqliteIndex("trade_log", "day")
+                    .index("prices_day", "identifier, id")
+                    .sqliteIndex("prices_day", "day")
+                    .index("prices_month", "identifier, id")
+                    .sqliteIndex("prices_month", "day")
+                    .sqliteIndex("prices_history", "identifier, day")
+                    .index("portfolios_log", "uuid, identifier, day")
+                    .sqliteIndex("portfolios_log", "uuid, day")
+                    .sqliteIndex("portfolios_worth", "uuid, day")
+                    .sqliteIndex("portfolios_worth", "day")
+                    .sqliteIndex("portfolios", "uuid, identifier")
+                    .sqliteIndex("discord_links", "userid")
+                    .sqliteIndex("discord_links", "uuid")
+                    .sqliteIndex("alerts", "userid, identifier")
+                    .sqliteIndex("alerts", "day")
+                    .sqliteIndex("limit_orders", "uuid, identifier")
+                    .sqliteIndex("loans", "uuid")
+                    .sqliteIndex("interests", "uuid")
+                    .sqliteIndex("user_names", "uuid"),
+
+            new Migration(2, "Epoch timestamps in price history and indexes for pruning")
+                    .column("prices_day", "epoch", "INTEGER", "BIGINT")
+                    .column("prices_month", "epoch", "INTEGER", "BIGINT")
+                    .column("prices_history", "epoch", "INTEGER", "BIGINT")
+                    .index("prices_day", "day")
+                    .index("prices_month", "day"),
+
+            new Migration(3, "Open, high, low and close prices in price history")
+                    .candleColumns("prices_day")
+                    .candleColumns("prices_month")
+                    .candleColumns("prices_history")
+    );
+
+    /**
+     * Apply every migration newer than the recorded schema version
+     */
+    public static void migrate(Connection connection, DatabaseType type, String prefix) throws SQLException {
+
+        String versionTable = prefix + "schema_version";
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + versionTable + " (" +
+                    "version INT PRIMARY KEY, " +
+                    "description " + (type == DatabaseType.MYSQL ? "VARCHAR(255)" : "TEXT") + " NOT NULL, " +
+                    "applied " + (type == DatabaseType.MYSQL ? "VARCHAR(32)" : "TEXT") + " NOT NULL);");
+        }
+
+        int current = 0;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) AS version FROM " + versionTable + ";")) {
+            if (resultSet.next()) current = resultSet.getInt("version");
+        }
+
+        for (Migration migration : MIGRATIONS) {
+
+            if (migration.version <= current) continue;
+
+            for (Column column : migration.columns)
+                addColumn(connection, type, prefix + column.table, column);
+
+            for (Index index : migration.indexes) {
+                if (index.sqliteOnly && type != DatabaseType.SQLITE) continue;
+                createIndex(connection, type, prefix + index.table, index);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + versionTable + " (version, description, applied) VALUES (?,?,?);")) {
+                statement.setInt(1, migration.version);
+                statement.setString(2, migration.description);
+                statement.setString(3, LocalDateTime.now().toString());
+                statement.executeUpdate();
+            }
+
+            Nascraft.getInstance().getLogger().info("Applied schema migration " + migration.version + ": " + migration.description);
+        }
+    }
+
+    private static void addColumn(Connection connection, DatabaseType type, String table, Column column) throws SQLException {
+
+        if (type == DatabaseType.MYSQL) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?;")) {
+                statement.setString(1, table);
+                statement.setString(2, column.name);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next() && resultSet.getInt(1) > 0) return;
+                }
+            }
+        } else {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + table + ");")) {
+                while (resultSet.next())
+                    if (column.name.equalsIgnoreCase(resultSet.getString("name"))) return;
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column.name + " " +
+                    (type == DatabaseType.MYSQL ? column.mysqlType : column.sqliteType) + ";");
+        }
+    }
+
+    private static void createIndex(Connection connection, DatabaseType type, String table, Index index) throws SQLException {
+
+        String name = index.getName(table);
+
+        if (type == DatabaseType.MYSQL) {
+            // MySQL has no CREATE INDEX IF NOT EXISTS
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?;")) {
+                statement.setString(1, table);
+                statement.setString(2, name);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next() && resultSet.getInt(1) > 0) return;
+                }
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX " + name + " ON " + table + " (" + index.columns + ");");
+            }
+
+        } else {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + index.columns + ");");
+            }
+        }
+    }
+
+    private static class Migration {
+
+        private final int version;
+        private final String description;
+        private final List<Column> columns = new ArrayList<>();
+        private final List<Index> indexes = new ArrayList<>();
+
+        private Migration(int version, String description) {
+            this.version = version;
+            this.description = description;
+        }
+
+        private Migration column(String table, String name, String sqliteType, String mysqlType) {
+            columns.add(new Column(table, name, sqliteType, mysqlType));
+            return this;
+        }
+
+        private Migration candleColumns(String table) {
+            for (String name : new String[]{"open_price", "high_price", "low_price", "close_price"})
+                column(table, name, "REAL", "DOUBLE");
+            return this;
+        }
+
+        private Migration index(String table, String columns) {
+            indexes.add(new Index(table, columns, false));
+            return this;
+        }
+
+        // Backends whose base schema already has an equivalent key skip these
+        private Migration sqliteIndex(String table, String columns) {
+            indexes.add(new Index(table, columns, true));
+            return this;
+        }
+    }
+
+    private static class Column {
+
+        private final String table;
+        private final String name;
+        private final String sqliteType;
+        private final String mysqlType;
+
+        private Column(String table, String name, String sqliteType, String mysqlType) {
+            this.table = table;
+            this.name = name;
+            this.sqliteType = sqliteType;
+            this.mysqlType = mysqlType;
+        }
+    }
+
+    private static class Index {
+
+        private final String table;
+        private final String columns;
+        private final boolean sqliteOnly;
+
+        private Index(String table, String columns, boolean sqliteOnly) {
+            this.table = table;
+            this.columns = columns;
+            this.sqliteOnly = sqliteOnly;
+        }
+
+        private String getName(String prefixedTable) {
+            return "idx_" + prefixedTable + "_" + columns.replace(", ", "_");
+        }
+    }
+
+}
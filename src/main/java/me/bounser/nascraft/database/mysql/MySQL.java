@@ -6,12 +6,23 @@ import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.database.Database;
+import me.bounser.nascraft.database.DatabaseType;
+import me.bounser.nascraft.database.commands.Debt;
+import me.bounser.nascraft.database.commands.HistorialData;
+import me.bounser.nascraft.database.commands.LimitOrders;
+import me.bounser.nascraft.database.commands.Portfolios;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.database.commands.resources.LimitOrderEvent;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
 import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.database.migration.SchemaMigrations;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.Resolution;
 import me.bounser.nascraft.portfolio.Portfolio;
 
 import java.sql.Connection;
@@ -256,6 +267,8 @@ public class MySQL implements Database {
                             "name TEXT NOT NULL, " +
                             "UNIQUE KEY unique_uuid (uuid)");
 
+            SchemaMigrations.migrate(connection, DatabaseType.MYSQL, TABLE_PREFIX);
+
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().severe("Failed to create tables: " + e.getMessage());
         }
@@ -271,12 +284,44 @@ public class MySQL implements Database {
 
     @Override
     public void saveEverything() {
+
+        List<Item> dirtyItems = new ArrayList<>();
+
         for (Item item : MarketManager.getInstance().getAllParentItems()) {
-            try (Connection connection = getConnection()) {
-                saveItem(connection, item);
+            if (!item.isDirty()) continue;
+            item.setDirty(false);
+            dirtyItems.add(item);
+        }
+
+        if (dirtyItems.isEmpty()) return;
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            String sql = "INSERT INTO " + TABLE_PREFIX + "items (identifier, lastprice, lowest, highest, stock, taxes) VALUES (?,?,?,?,?,?) " +
+                    "ON DUPLICATE KEY UPDATE lastprice=VALUES(lastprice), lowest=VALUES(lowest), " +
+                    "highest=VALUES(highest), stock=VALUES(stock), taxes=VALUES(taxes)";
+
+            try (PreparedStatement prep = connection.prepareStatement(sql)) {
+                for (Item item : dirtyItems) {
+                    prep.setString(1, item.getIdentifier());
+                    prep.setDouble(2, item.getPrice().getValue());
+                    prep.setDouble(3, item.getPrice().getHistoricalLow());
+                    prep.setDouble(4, item.getPrice().getHistoricalHigh());
+                    prep.setDouble(5, item.getPrice().getStock());
+                    prep.setDouble(6, item.getCollectedTaxes());
+                    prep.addBatch();
+                }
+                prep.executeBatch();
+                connection.commit();
             } catch (SQLException e) {
-                Nascraft.getInstance().getLogger().warning(e.getMessage());
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
+        } catch (SQLException e) {
+            dirtyItems.forEach(item -> item.setDirty(true));
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
@@ -396,17 +441,74 @@ public class MySQL implements Database {
 
     // Historical Data methods
     @Override
-    public void saveDayPrice(Item item, Instant instant) {
-        try (Connection connection = getConnection()) {
-            String sql = "INSERT INTO " + TABLE_PREFIX + "prices_day (day, date, identifier, price, volume) VALUES (?, ?, ?, ?, ?);";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                // Corrigido: usando métodos corretos da classe Instant
-                prep.setInt(1, NormalisedDate.getDays());
-                prep.setString(2, instant.getLocalDateTime().toString());
-                prep.setString(3, item.getIdentifier());
-                prep.setDouble(4, instant.getPrice());
-                prep.setInt(5, instant.getVolume());
-                prep.executeUpdate();
+    public void saveHistory(List<HistoryEntry> entries) {
+        if (entries == null || entries.isEmpty()) return;
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement day = connection.prepareStatement("INSERT INTO " + TABLE_PREFIX + "prices_day (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
+                 PreparedStatement monthUpdate = connection.prepareStatement("UPDATE " + TABLE_PREFIX + "prices_month SET price = ?, volume = ?, open_price = ?, high_price = ?, low_price = ?, close_price = ? WHERE identifier = ? AND epoch = ?;");
+                 PreparedStatement month = connection.prepareStatement("INSERT INTO " + TABLE_PREFIX + "prices_month (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ? FROM DUAL " +
+                         "WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_PREFIX + "prices_month WHERE identifier = ? AND epoch = ?);");
+                 PreparedStatement historyUpdate = connection.prepareStatement("UPDATE " + TABLE_PREFIX + "prices_history SET price = ?, volume = ?, open_price = ?, high_price = ?, low_price = ?, close_price = ? WHERE identifier = ? AND day = ?;");
+                 PreparedStatement history = connection.prepareStatement("INSERT INTO " + TABLE_PREFIX + "prices_history (day, date, identifier, price, volume, epoch, open_price, high_price, low_price, close_price) SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ? FROM DUAL " +
+                         "WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_PREFIX + "prices_history WHERE identifier = ? AND day = ?);")) {
+
+                boolean hasDay = false, hasMonth = false, hasHistory = false;
+
+                for (HistoryEntry entry : entries) {
+                    PreparedStatement prep;
+                    Candle candle = entry.getCandle();
+
+                    // 4 hour and daily buckets are written while in progress, so their row is updated until the bucket closes.
+                    switch (entry.getResolution()) {
+                        case FIVE_MINUTES: prep = day; hasDay = true; break;
+                        case FOUR_HOURS:
+                            prep = month; hasMonth = true;
+                            HistorialData.bindUpdate(monthUpdate, entry, candle);
+                            monthUpdate.setLong(8, candle.getEpoch());
+                            monthUpdate.addBatch();
+                            prep.setString(11, entry.getItem().getIdentifier());
+                            prep.setLong(12, candle.getEpoch());
+                            break;
+                        default:
+                            prep = history; hasHistory = true;
+                            HistorialData.bindUpdate(historyUpdate, entry, candle);
+                            historyUpdate.setInt(8, entry.getDay());
+                            historyUpdate.addBatch();
+                            prep.setString(11, entry.getItem().getIdentifier());
+                            prep.setInt(12, entry.getDay());
+                    }
+
+                    prep.setInt(1, entry.getDay());
+                    prep.setString(2, entry.getLocalDateTime().toString());
+                    prep.setString(3, entry.getItem().getIdentifier());
+                    prep.setDouble(4, candle.getAverage());
+                    prep.setInt(5, candle.getVolume());
+                    prep.setLong(6, candle.getEpoch());
+                    prep.setDouble(7, candle.getOpen());
+                    prep.setDouble(8, candle.getHigh());
+                    prep.setDouble(9, candle.getLow());
+                    prep.setDouble(10, candle.getClose());
+                    prep.addBatch();
+                }
+
+                if (hasDay) day.executeBatch();
+                if (hasMonth) {
+                    monthUpdate.executeBatch();
+                    month.executeBatch();
+                }
+                if (hasHistory) {
+                    historyUpdate.executeBatch();
+                    history.executeBatch();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -414,39 +516,26 @@ public class MySQL implements Database {
     }
 
     @Override
-    public void saveMonthPrice(Item item, Instant instant) {
-        try (Connection connection = getConnection()) {
-            String sql = "INSERT INTO " + TABLE_PREFIX + "prices_month (day, date, identifier, price, volume) VALUES (?, ?, ?, ?, ?);";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                // Corrigido: usando métodos corretos da classe Instant
-                prep.setInt(1, NormalisedDate.getDays());
-                prep.setString(2, instant.getLocalDateTime().toString());
-                prep.setString(3, item.getIdentifier());
-                prep.setDouble(4, instant.getPrice());
-                prep.setInt(5, instant.getVolume());
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
+    public void pruneHistory() {
+        prunePrices(TABLE_PREFIX + "prices_day", NormalisedDate.getDays() - 2);
+        prunePrices(TABLE_PREFIX + "prices_month", NormalisedDate.getDays() - 31);
     }
 
-    @Override
-    public void saveHistoryPrices(Item item, Instant instant) {
-        try (Connection connection = getConnection()) {
-            String sql = "INSERT INTO " + TABLE_PREFIX + "prices_history (day, date, identifier, price, volume) VALUES (?, ?, ?, ?, ?);";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                // Corrigido: usando métodos corretos da classe Instant
-                prep.setInt(1, NormalisedDate.getDays());
-                prep.setString(2, instant.getLocalDateTime().toString());
-                prep.setString(3, item.getIdentifier());
-                prep.setDouble(4, instant.getPrice());
-                prep.setInt(5, instant.getVolume());
-                prep.executeUpdate();
+    // Deleting in small batches avoids holding locks on the whole range at once.
+    private void prunePrices(String table, int beforeDay) {
+        int batch = 2000;
+        int deleted;
+        do {
+            try (Connection connection = getConnection();
+                 PreparedStatement prep = connection.prepareStatement("DELETE FROM " + table + " WHERE day < ? LIMIT ?;")) {
+                prep.setInt(1, beforeDay);
+                prep.setInt(2, batch);
+                deleted = prep.executeUpdate();
+            } catch (SQLException e) {
+                Nascraft.getInstance().getLogger().warning(e.getMessage());
+                return;
             }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
+        } while (deleted == batch);
     }
 
     @Override
@@ -552,6 +641,36 @@ public class MySQL implements Database {
         return instants;
     }
 
+    @Override
+    public List<Candle> getCandles(Item item, Resolution resolution, int limit) {
+        List<Candle> candles = new ArrayList<>();
+        try (Connection connection = getConnection()) {
+            String columns = "day, date, epoch, price, volume, open_price, high_price, low_price, close_price";
+            String sql;
+            switch (resolution) {
+                case FIVE_MINUTES:
+                    sql = "SELECT " + columns + " FROM " + TABLE_PREFIX + "prices_day WHERE identifier = ? ORDER BY id DESC LIMIT ?;";
+                    break;
+                case FOUR_HOURS:
+                    sql = "SELECT " + columns + " FROM " + TABLE_PREFIX + "prices_month WHERE identifier = ? ORDER BY id DESC LIMIT ?;";
+                    break;
+                default:
+                    sql = "SELECT " + columns + " FROM " + TABLE_PREFIX + "prices_history WHERE identifier = ? ORDER BY day DESC LIMIT ?;";
+            }
+            try (PreparedStatement prep = connection.prepareStatement(sql)) {
+                prep.setString(1, item.getIdentifier());
+                prep.setInt(2, limit);
+                ResultSet rs = prep.executeQuery();
+
+                while (rs.next()) candles.add(HistorialData.toCandle(rs, resolution));
+            }
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+        Collections.reverse(candles);
+        return candles;
+    }
+
     @Override
     public Double getPriceOfDay(String identifier, int day) {
         try (Connection connection = getConnection()) {
@@ -683,6 +802,40 @@ public class MySQL implements Database {
         }
     }
 
+    @Override
+    public void saveTrades(List<Trade> trades) {
+        if (trades == null || trades.isEmpty()) return;
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            // rewriteBatchedStatements turns the batch into multi-row inserts
+            String sql = "INSERT INTO " + TABLE_PREFIX + "trade_log (uuid, day, date, identifier, amount, value, buy, discord) VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
+            try (PreparedStatement prep = connection.prepareStatement(sql)) {
+                for (Trade trade : trades) {
+                    prep.setString(1, trade.getUuid().toString());
+                    prep.setInt(2, NormalisedDate.getDays(trade.getDate()));
+                    prep.setString(3, trade.getDate().toString());
+                    prep.setString(4, trade.getItem().getIdentifier());
+                    prep.setInt(5, trade.getAmount());
+                    prep.setDouble(6, trade.getValue());
+                    prep.setBoolean(7, trade.isBuy());
+                    prep.setBoolean(8, trade.throughDiscord());
+                    prep.addBatch();
+                }
+                prep.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // Thrown to the journal, which counts the trades as failed
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public List<Trade> retrieveTrades(UUID uuid, int offset, int limit) {
         List<Trade> trades = new ArrayList<>();
@@ -827,47 +980,42 @@ public class MySQL implements Database {
 
     // Portfolio methods
     @Override
-    public void updateItemPortfolio(UUID uuid, Item item, int quantity) {
+    public void savePortfolioDeltas(List<PortfolioDelta> deltas) {
         try (Connection connection = getConnection()) {
-            // Use MySQL-specific implementation for better performance
-            String sql = "INSERT INTO " + TABLE_PREFIX + "portfolios (uuid, identifier, amount) VALUES (?,?,?) " +
-                    "ON DUPLICATE KEY UPDATE amount=VALUES(amount)";
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
 
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setString(2, item.getIdentifier());
-                prep.setInt(3, quantity);
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning("Error updating portfolio: " + e.getMessage());
-        }
-    }
+            // The log keeps one row per change, so each item and day adds its net change
+            String sql = "INSERT INTO " + TABLE_PREFIX + "portfolios_log (uuid, day, identifier, amount, contribution) " +
+                    "VALUES (?, ?, ?, ?, ?)";
 
-    @Override
-    public void removeItemPortfolio(UUID uuid, Item item) {
-        try (Connection connection = getConnection()) {
-            String sql = "DELETE FROM " + TABLE_PREFIX + "portfolios WHERE uuid = ? AND identifier = ?;";
             try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setString(2, item.getIdentifier());
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
 
-    @Override
-    public void clearPortfolio(UUID uuid) {
-        try (Connection connection = getConnection()) {
-            String sql = "DELETE FROM " + TABLE_PREFIX + "portfolios WHERE uuid = ?;";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.executeUpdate();
+                Portfolios.saveHoldings(connection, TABLE_PREFIX + "portfolios", deltas);
+
+                for (PortfolioDelta delta : deltas) {
+
+                    if (!delta.hasLog()) continue;
+
+                    prep.setString(1, delta.getUuid().toString());
+                    prep.setInt(2, delta.getDay());
+                    prep.setString(3, delta.getIdentifier());
+                    prep.setInt(4, delta.getDeposited() - delta.getWithdrawn());
+                    prep.setDouble(5, delta.getDepositedValue() - delta.getWithdrawnValue());
+                    prep.addBatch();
+                }
+
+                prep.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            // Thrown to the portfolio writer, which keeps the changes for the next flush
+            throw new RuntimeException(e);
         }
     }
 
@@ -930,49 +1078,12 @@ public class MySQL implements Database {
 
     // Debt methods
     @Override
-    public void increaseDebt(UUID uuid, Double debt) {
+    public void saveDebts(Map<UUID, Double> debts, Map<UUID, Double> interests) {
         try (Connection connection = getConnection()) {
-            // Use MySQL-specific implementation for better performance
-            String sql = "INSERT INTO " + TABLE_PREFIX + "loans (uuid, debt) VALUES (?,?) " +
-                    "ON DUPLICATE KEY UPDATE debt=debt+VALUES(debt)";
-
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setDouble(2, debt);
-                prep.executeUpdate();
-            }
+            Debt.saveDebts(connection, TABLE_PREFIX + "loans", TABLE_PREFIX + "interests", debts, interests);
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning("Error increasing debt: " + e.getMessage());
-        }
-    }
-
-    @Override
-    public void decreaseDebt(UUID uuid, Double debt) {
-        try (Connection connection = getConnection()) {
-            String sql1 = "SELECT debt FROM " + TABLE_PREFIX + "loans WHERE uuid=?;";
-            try (PreparedStatement prep1 = connection.prepareStatement(sql1)) {
-                prep1.setString(1, uuid.toString());
-                ResultSet resultSet = prep1.executeQuery();
-
-                if(resultSet.next()) {
-                    if (resultSet.getDouble("debt") - debt <= 0) {
-                        String sql2 = "DELETE FROM " + TABLE_PREFIX + "loans WHERE uuid=?;";
-                        try (PreparedStatement prep2 = connection.prepareStatement(sql2)) {
-                            prep2.setString(1, uuid.toString());
-                            prep2.executeUpdate();
-                        }
-                    } else {
-                        String sql2 = "UPDATE " + TABLE_PREFIX + "loans SET debt=? WHERE uuid=?;";
-                        try (PreparedStatement prep2 = connection.prepareStatement(sql2)) {
-                            prep2.setDouble(1, resultSet.getDouble("debt") - debt);
-                            prep2.setString(2, uuid.toString());
-                            prep2.executeUpdate();
-                        }
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            // Thrown to the debt writer, which marks the players again
+            throw new RuntimeException(e);
         }
     }
 
@@ -1017,23 +1128,6 @@ public class MySQL implements Database {
         return debtors;
     }
 
-    @Override
-    public void addInterestPaid(UUID uuid, Double interest) {
-        try (Connection connection = getConnection()) {
-            // Use MySQL-specific implementation for better performance
-            String sql = "INSERT INTO " + TABLE_PREFIX + "interests (uuid, paid) VALUES (?,?) " +
-                    "ON DUPLICATE KEY UPDATE paid=paid+VALUES(paid)";
-
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setDouble(2, interest);
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning("Error adding interest: " + e.getMessage());
-        }
-    }
-
     @Override
     public HashMap<UUID, Double> getUUIDAndInterestsPaid() {
         HashMap<UUID, Double> payers = new HashMap<>();
@@ -1192,50 +1286,6 @@ public class MySQL implements Database {
     }
 
     // Portfolio Log methods
-    @Override
-    public void logContribution(UUID uuid, Item item, int amount) {
-        try (Connection connection = getConnection()) {
-            int today = NormalisedDate.getDays();
-            double contribution = amount * item.getPrice().getValue();
-
-            String sql = "INSERT INTO " + TABLE_PREFIX + "portfolios_log (uuid, day, identifier, amount, contribution) " +
-                    "VALUES (?, ?, ?, ?, ?)";
-
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setInt(2, today);
-                prep.setString(3, item.getIdentifier());
-                prep.setInt(4, amount);
-                prep.setDouble(5, contribution);
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void logWithdraw(UUID uuid, Item item, int amount) {
-        try (Connection connection = getConnection()) {
-            int today = NormalisedDate.getDays();
-            double contribution = -1 * amount * item.getPrice().getValue();
-
-            String sql = "INSERT INTO " + TABLE_PREFIX + "portfolios_log (uuid, day, identifier, amount, contribution) " +
-                    "VALUES (?, ?, ?, ?, ?)";
-
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid.toString());
-                prep.setInt(2, today);
-                prep.setString(3, item.getIdentifier());
-                prep.setInt(4, -amount);
-                prep.setDouble(5, contribution);
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
     @Override
     public HashMap<Integer, Double> getContributionChangeEachDay(UUID uuid) {
         HashMap<Integer, Double> contributions = new HashMap<>();
@@ -1533,68 +1583,18 @@ public class MySQL implements Database {
 
     // Limit Orders methods
     @Override
-    public void addLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
-        try (Connection connection = getConnection()) {
-            String sql = "INSERT INTO " + TABLE_PREFIX + "limit_orders (expiration, uuid, identifier, type, price, to_complete, completed, cost) VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, expiration.toString());
-                prep.setString(2, uuid.toString());
-                prep.setString(3, item.getIdentifier());
-                prep.setInt(4, type);
-                prep.setDouble(5, price);
-                prep.setInt(6, amount);
-                prep.setInt(7, 0);
-                prep.setDouble(8, 0);
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void updateLimitOrder(UUID uuid, Item item, int completed, double cost) {
-        try (Connection connection = getConnection()) {
-            String sql = "UPDATE " + TABLE_PREFIX + "limit_orders SET completed=?, cost=? WHERE uuid=? AND identifier=?;";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setInt(1, completed);
-                prep.setDouble(2, cost);
-                prep.setString(3, uuid.toString());
-                prep.setString(4, item.getIdentifier());
-                prep.executeUpdate();
-            }
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void removeLimitOrder(String uuid, String identifier) {
+    public void saveLimitOrderEvents(List<LimitOrderEvent> events) {
         try (Connection connection = getConnection()) {
-            String sql = "DELETE FROM " + TABLE_PREFIX + "limit_orders WHERE uuid = ? AND identifier = ?;";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                prep.setString(1, uuid);
-                prep.setString(2, identifier);
-                prep.executeUpdate();
-            }
+            LimitOrders.saveLimitOrderEvents(connection, TABLE_PREFIX + "limit_orders", events);
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            throw new RuntimeException(e);
         }
     }
 
     @Override
     public void retrieveLimitOrders() {
         try (Connection connection = getConnection()) {
-            String sql = "SELECT expiration, uuid, identifier, type, cost, price, to_complete, completed FROM " + TABLE_PREFIX + "limit_orders;";
-            try (PreparedStatement prep = connection.prepareStatement(sql)) {
-                ResultSet resultSet = prep.executeQuery();
-
-                while (resultSet.next()) {
-                    // Implementação específica para recuperar ordens limite
-                    // Aqui você precisaria chamar o método apropriado do LimitOrdersManager
-                    // LimitOrdersManager.getInstance().registerLimitOrder(...);
-                }
-            }
+            LimitOrders.retrieveLimitOrders(connection, TABLE_PREFIX + "limit_orders");
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
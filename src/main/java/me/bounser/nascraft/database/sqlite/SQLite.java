@@ -1,26 +1,33 @@
 package me.bounser.nascraft.database.sqlite;
 
 import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.Database;
+import me.bounser.nascraft.database.DatabaseType;
 import me.bounser.nascraft.database.commands.*;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.database.commands.resources.LimitOrderEvent;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.PortfolioDelta;
 import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.database.migration.SchemaMigrations;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.Resolution;
 import me.bounser.nascraft.portfolio.Portfolio;
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.*;
 
 public class SQLite implements Database {
 
-    private Connection connection;
+    private SQLiteConnectionPool pool;
 
     private final String PATH = Nascraft.getInstance().getDataFolder().getPath() + "/data/sqlite.db";
 
@@ -50,15 +57,20 @@ public class SQLite implements Database {
         }
     }
 
-    public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
+    private SQLiteConnectionPool pool() throws SQLException {
+        if (pool == null) {
             connect();
+            if (pool == null) throw new SQLException("Could not open SQLite database.");
         }
-        return connection;
+        return pool;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return pool().getReader();
     }
+
     private void createTable(Connection connection, String tableName, String columns) {
-        try {
-            Statement statement = connection.createStatement();
+        try (Statement statement = connection.createStatement()) {
             statement.execute("CREATE TABLE IF NOT EXISTS " + tableName + " (" + columns + ");");
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -71,9 +83,13 @@ public class SQLite implements Database {
         createDatabaseIfNotExists();
 
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + PATH);
+            pool = new SQLiteConnectionPool(PATH,
+                    Config.getInstance().getSQLiteReadConnections(),
+                    Config.getInstance().getSQLiteMmapSize() * 1024L * 1024L,
+                    -Config.getInstance().getSQLiteCacheSize() * 1024);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
+            return;
         }
 
         createTables();
@@ -82,15 +98,29 @@ public class SQLite implements Database {
     @Override
     public void disconnect() {
         saveEverything();
+
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 
     @Override
     public boolean isConnected() {
-        return false;
+        return pool != null;
     }
 
     @Override
     public void createTables() {
+        try (Connection connection = pool().getWriter()) {
+            createTables(connection);
+            SchemaMigrations.migrate(connection, DatabaseType.SQLITE, "");
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+    }
+
+    private void createTables(Connection connection) {
 
         createTable(connection, "items",
                 "identifier TEXT PRIMARY KEY, " +
@@ -211,18 +241,28 @@ public class SQLite implements Database {
 
     @Override
     public void saveEverything() {
+
+        List<Item> dirtyItems = new ArrayList<>();
+
         for (Item item : MarketManager.getInstance().getAllParentItems()) {
-            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-                ItemProperties.saveItem(connection, item);
-            } catch (SQLException e) {
-                Nascraft.getInstance().getLogger().warning(e.getMessage());
-            }
+            if (!item.isDirty()) continue;
+            item.setDirty(false);
+            dirtyItems.add(item);
+        }
+
+        if (dirtyItems.isEmpty()) return;
+
+        try (Connection connection = pool().getWriter()) {
+            ItemProperties.saveItems(connection, dirtyItems);
+        } catch (SQLException | RuntimeException e) {
+            dirtyItems.forEach(item -> item.setDirty(true));
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
     @Override
     public void saveLink(String userId, UUID uuid, String nickname) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             DiscordLink.saveLink(connection, userId, uuid, nickname);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -231,7 +271,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeLink(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             DiscordLink.removeLink(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -240,7 +280,7 @@ public class SQLite implements Database {
 
     @Override
     public UUID getUUID(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return DiscordLink.getUUID(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -250,7 +290,7 @@ public class SQLite implements Database {
 
     @Override
     public String getNickname(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return DiscordLink.getNickname(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -260,7 +300,7 @@ public class SQLite implements Database {
 
     @Override
     public String getUserId(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return DiscordLink.getUserId(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -269,35 +309,37 @@ public class SQLite implements Database {
     }
 
     @Override
-    public void saveDayPrice(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            HistorialData.saveDayPrice(connection, item, instant);
-        } catch (SQLException e) {
+    public void saveHistory(List<HistoryEntry> entries) {
+        try (Connection connection = pool().getWriter()) {
+            HistorialData.saveHistory(connection, entries);
+        } catch (SQLException | RuntimeException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
     @Override
-    public void saveMonthPrice(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            HistorialData.saveMonthPrice(connection, item, instant);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
+    public void pruneHistory() {
+        prunePrices("prices_day", NormalisedDate.getDays() - 2);
+        prunePrices("prices_month", NormalisedDate.getDays() - 31);
     }
 
-    @Override
-    public void saveHistoryPrices(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            HistorialData.saveHistoryPrices(connection, item, instant);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
+    // Deleting in small batches keeps the writer free for other statements in between.
+    private void prunePrices(String table, int beforeDay) {
+        int batch = 2000;
+        int deleted;
+        do {
+            try (Connection connection = pool().getWriter()) {
+                deleted = HistorialData.prunePrices(connection, table, beforeDay, batch);
+            } catch (SQLException | RuntimeException e) {
+                Nascraft.getInstance().getLogger().warning(e.getMessage());
+                return;
+            }
+        } while (deleted == batch);
     }
 
     @Override
     public List<Instant> getDayPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return HistorialData.getDayPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -307,7 +349,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getMonthPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return HistorialData.getMonthPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -317,7 +359,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getYearPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return HistorialData.getYearPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -327,7 +369,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getAllPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return HistorialData.getAllPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -335,9 +377,19 @@ public class SQLite implements Database {
         }
     }
 
+    @Override
+    public List<Candle> getCandles(Item item, Resolution resolution, int limit) {
+        try (Connection connection = pool().getReader()) {
+            return HistorialData.getCandles(connection, item, resolution, limit);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
     @Override
     public Double getPriceOfDay(String identifier, int day) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return HistorialData.getPriceOfDay(connection, identifier, day);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -347,7 +399,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveItem(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             ItemProperties.saveItem(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -356,7 +408,7 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveItem(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             ItemProperties.retrieveItem(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -365,7 +417,7 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveItems() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             ItemProperties.retrieveItems(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -374,7 +426,7 @@ public class SQLite implements Database {
 
     @Override
     public float retrieveLastPrice(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return ItemProperties.retrieveLastPrice(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -384,16 +436,25 @@ public class SQLite implements Database {
 
     @Override
     public void saveTrade(Trade trade) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             TradesLog.saveTrade(connection, trade);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
+    @Override
+    public void saveTrades(List<Trade> trades) {
+        try (Connection connection = pool().getWriter()) {
+            TradesLog.saveTrades(connection, trades);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public List<Trade> retrieveTrades(UUID uuid, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return TradesLog.retrieveTrades(connection, uuid, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -403,7 +464,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(UUID uuid, Item item, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return TradesLog.retrieveTrades(connection, uuid, item, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -413,7 +474,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(Item item, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return TradesLog.retrieveTrades(connection, item, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -423,7 +484,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return TradesLog.retrieveLastTrades(connection, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -433,7 +494,7 @@ public class SQLite implements Database {
 
     @Override
     public void purgeHistory() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             TradesLog.purgeHistory(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -441,35 +502,29 @@ public class SQLite implements Database {
     }
 
     @Override
-    public void updateItemPortfolio(UUID uuid, Item item, int quantity) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Portfolios.updateItemPortfolio(connection, uuid, item, quantity);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
+    public void savePortfolioDeltas(List<PortfolioDelta> deltas) {
+        try (Connection connection = pool().getWriter()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
 
-    @Override
-    public void removeItemPortfolio(UUID uuid, Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Portfolios.removeItemPortfolio(connection, uuid, item);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void clearPortfolio(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Portfolios.clearPortfolio(connection, uuid);
+            try {
+                Portfolios.saveHoldings(connection, "portfolios", deltas);
+                PortfoliosLog.saveLog(connection, deltas);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            throw new RuntimeException(e);
         }
     }
 
     @Override
     public void updateCapacity(UUID uuid, int capacity) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Portfolios.updateCapacity(connection, uuid, capacity);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -478,7 +533,7 @@ public class SQLite implements Database {
 
     @Override
     public LinkedHashMap<Item, Integer> retrievePortfolio(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Portfolios.retrievePortfolio(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -488,7 +543,7 @@ public class SQLite implements Database {
 
     @Override
     public int retrieveCapacity(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             return Portfolios.retrieveCapacity(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -496,27 +551,9 @@ public class SQLite implements Database {
         }
     }
 
-    @Override
-    public void logContribution(UUID uuid, Item item, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            PortfoliosLog.logContribution(connection, uuid, item, amount);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void logWithdraw(UUID uuid, Item item, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            PortfoliosLog.logWithdraw(connection, uuid, item, amount);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
     @Override
     public HashMap<Integer, Double> getContributionChangeEachDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return PortfoliosLog.getContributionChangeEachDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -526,7 +563,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<Integer, HashMap<String, Integer>> getCompositionEachDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return PortfoliosLog.getCompositionEachDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -536,7 +573,7 @@ public class SQLite implements Database {
 
     @Override
     public int getFirstDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return PortfoliosLog.getFirstDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -545,26 +582,17 @@ public class SQLite implements Database {
     }
 
     @Override
-    public void increaseDebt(UUID uuid, Double debt) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Debt.increaseDebt(connection, uuid, debt);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void decreaseDebt(UUID uuid, Double debt) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Debt.decreaseDebt(connection, uuid, debt);
+    public void saveDebts(Map<UUID, Double> debts, Map<UUID, Double> interests) {
+        try (Connection connection = pool().getWriter()) {
+            Debt.saveDebts(connection, "loans", "interests", debts, interests);
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            throw new RuntimeException(e);
         }
     }
 
     @Override
     public double getDebt(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getDebt(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -574,7 +602,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<UUID, Double> getUUIDAndDebt() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getUUIDAndDebt(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -582,18 +610,9 @@ public class SQLite implements Database {
         return null;
     }
 
-    @Override
-    public void addInterestPaid(UUID uuid, Double interest) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Debt.addInterestPaid(connection, uuid, interest);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
     @Override
     public HashMap<UUID, Double> getUUIDAndInterestsPaid() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getUUIDAndInterestsPaid(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -603,7 +622,7 @@ public class SQLite implements Database {
 
     @Override
     public double getInterestsPaid(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getInterestsPaid(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -613,7 +632,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllOutstandingDebt() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getAllOutstandingDebt(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -623,7 +642,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllInterestsPaid() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Debt.getAllInterestsPaid(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -633,7 +652,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateWorth(UUID uuid, int day, double worth) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             PortfoliosWorth.saveOrUpdateWorth(connection, uuid, day, worth);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -642,7 +661,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateWorthToday(UUID uuid, double worth) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             PortfoliosWorth.saveOrUpdateWorthToday(connection, uuid, worth);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -651,7 +670,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<UUID, Portfolio> getTopWorth(int n) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return PortfoliosWorth.getTopWorth(connection, n);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -661,7 +680,7 @@ public class SQLite implements Database {
 
     @Override
     public double getLatestWorth(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return PortfoliosWorth.getLatestWorth(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -671,7 +690,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveCPIValue(float indexValue) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Statistics.saveCPI(connection, indexValue);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -680,7 +699,7 @@ public class SQLite implements Database {
 
     @Override
     public List<CPIInstant> getCPIHistory() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Statistics.getAllCPI(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -690,7 +709,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getPriceAgainstCPI(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Statistics.getPriceAgainstCPI(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -700,7 +719,7 @@ public class SQLite implements Database {
 
     @Override
     public void addTransaction(double newFlow, double effectiveTaxes) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Statistics.addTransaction(connection, newFlow, effectiveTaxes);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning("Error while trying to log a transaction");
@@ -709,7 +728,7 @@ public class SQLite implements Database {
 
     @Override
     public List<DayInfo> getDayInfos() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Statistics.getDayInfos(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -719,7 +738,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllTaxesCollected() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return Statistics.getAllTaxesCollected(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -729,25 +748,16 @@ public class SQLite implements Database {
 
     @Override
     public void addAlert(String userid, Item item, double price) {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                Alerts.addAlert(connection, userid, item, price);
-            } else {
-                try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-                    Alerts.addAlert(connection, userid, item, price);
-                } catch (SQLException e) {
-                    Nascraft.getInstance().getLogger().warning(e.getMessage());
-                }
-            }
-
+        try (Connection connection = pool().getWriter()) {
+            Alerts.addAlert(connection, userid, item, price);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
     @Override
     public void removeAlert(String userid, Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Alerts.removeAlert(connection, userid, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -756,19 +766,16 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveAlerts() {
-
-        Alerts.retrieveAlerts(connection);
-
-        try {
-            connection.close();
+        try (Connection connection = pool().getReader()) {
+            Alerts.retrieveAlerts(connection);
         } catch (SQLException e) {
-            throw new RuntimeException(e);
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
     @Override
     public void removeAllAlerts(String userid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Alerts.removeAllAlerts(connection, userid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -777,7 +784,7 @@ public class SQLite implements Database {
 
     @Override
     public void purgeAlerts() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             Alerts.purgeAlerts(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -785,35 +792,17 @@ public class SQLite implements Database {
     }
 
     @Override
-    public void addLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            LimitOrders.addLimitOrder(connection, uuid, expiration, item, type, price, amount);
+    public void saveLimitOrderEvents(List<LimitOrderEvent> events) {
+        try (Connection connection = pool().getWriter()) {
+            LimitOrders.saveLimitOrderEvents(connection, "limit_orders", events);
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void updateLimitOrder(UUID uuid, Item item, int completed, double cost) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            LimitOrders.updateLimitOrder(connection, uuid, item, completed, cost);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
-        }
-    }
-
-    @Override
-    public void removeLimitOrder(String uuid, String identifier) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            LimitOrders.removeLimitOrder(connection, uuid, identifier);
-        } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            throw new RuntimeException(e);
         }
     }
 
     @Override
     public void retrieveLimitOrders() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             LimitOrders.retrieveLimitOrders(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -822,7 +811,7 @@ public class SQLite implements Database {
 
     @Override
     public String getNameByUUID(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getReader()) {
             return UserNames.getNameByUUID(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -832,7 +821,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateName(UUID uuid, String name) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = pool().getWriter()) {
             UserNames.saveOrUpdateNick(connection, uuid, name);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -0,0 +1,349 @@
+package me.bounser.nascraft.database.sqlite;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One long-lived writer connection in WAL mode plus a small set of read-only connections.
+ * Connections handed out are leases: closing them returns the connection to the pool.
+ * Prepared statements are cached per physical connection and reused across leases, but never handed out twice
+ * at the same time. Nested reads reuse the connection the thread already holds.
+ */
+public class SQLiteConnectionPool {
+
+    private static final int MAX_CACHED_STATEMENTS = 128;
+
+    private final String url;
+    private final long mmapSize;
+    private final int cacheSize;
+
+    private final Connection writer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final List<Connection> readers = new ArrayList<>();
+    private final BlockingQueue<Connection> idleReaders;
+
+    // Reader leased by each thread, so nested reads don't need a second connection
+    private final ThreadLocal<Connection> currentReader = new ThreadLocal<>();
+
+    private final Map<Connection, Map<String, CachedStatement>> statementCache = new ConcurrentHashMap<>();
+
+    private volatile boolean closed = false;
+
+    public SQLiteConnectionPool(String path, int readConnections, long mmapSize, int cacheSize) throws SQLException {
+        this.url = "jdbc:sqlite:" + path;
+        this.mmapSize = mmapSize;
+        this.cacheSize = cacheSize;
+
+        writer = open(false);
+
+        idleReaders = new ArrayBlockingQueue<>(Math.max(1, readConnections));
+        for (int i = 0; i < Math.max(1, readConnections); i++) {
+            Connection reader = open(true);
+            readers.add(reader);
+            idleReaders.add(reader);
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+
+        Connection connection = DriverManager.getConnection(url);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = 5000;");
+            if (!readOnly) statement.execute("PRAGMA journal_mode = WAL;");
+            statement.execute("PRAGMA synchronous = NORMAL;");
+            statement.execute("PRAGMA temp_store = MEMORY;");
+            statement.execute("PRAGMA mmap_size = " + mmapSize + ";");
+            statement.execute("PRAGMA cache_size = " + cacheSize + ";");
+            if (readOnly) statement.execute("PRAGMA query_only = ON;");
+        }
+
+        return connection;
+    }
+
+    public Connection getWriter() throws SQLException {
+
+        if (closed) throw new SQLException("SQLite connection pool is closed.");
+
+        writeLock.lock();
+
+        boolean nested = writeLock.getHoldCount() > 1;
+
+        return lease(writer, nested, () -> writeLock.unlock());
+    }
+
+    public Connection getReader() throws SQLException {
+
+        if (closed) throw new SQLException("SQLite connection pool is closed.");
+
+        // Reads done while writing go through the writer, which also sees what hasn't been committed yet.
+        if (writeLock.isHeldByCurrentThread()) return getWriter();
+
+        Connection current = currentReader.get();
+        if (current != null) return lease(current, true, () -> { });
+
+        Connection reader = idleReaders.poll();
+
+        if (reader == null) {
+            // Every reader is busy: use a temporary one instead of waiting.
+            Connection temporary = open(true);
+            currentReader.set(temporary);
+            return lease(temporary, false, () -> {
+                currentReader.remove();
+                try { temporary.close(); } catch (SQLException ignored) { }
+            });
+        }
+
+        currentReader.set(reader);
+        return lease(reader, false, () -> {
+            currentReader.remove();
+            idleReaders.offer(reader);
+        });
+    }
+
+    private Connection lease(Connection physical, boolean nested, Runnable release) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[]{Connection.class},
+                new Lease(physical, nested, release));
+    }
+
+    public void close() {
+
+        closed = true;
+
+        writeLock.lock();
+        try {
+            for (Map<String, CachedStatement> statements : statementCache.values())
+                for (CachedStatement cached : statements.values())
+                    try { cached.statement.close(); } catch (SQLException ignored) { }
+
+            statementCache.clear();
+
+            try (Statement statement = writer.createStatement()) {
+                statement.execute("PRAGMA optimize;");
+            } catch (SQLException ignored) { }
+
+            for (Connection reader : readers)
+                try { reader.close(); } catch (SQLException ignored) { }
+
+            try { writer.close(); } catch (SQLException ignored) { }
+
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static class CachedStatement {
+
+        private final PreparedStatement statement;
+
+        // Whether a lease is using it right now
+        private boolean inUse = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private class Lease implements InvocationHandler {
+
+        private final Connection physical;
+        private final boolean nested;
+        private final Runnable release;
+
+        private final List<Statement> statements = new ArrayList<>();
+        private final List<CachedStatement> borrowed = new ArrayList<>();
+        private final List<ResultSet> resultSets = new ArrayList<>();
+
+        private boolean released = false;
+
+        private Lease(Connection physical, boolean nested, Runnable release) {
+            this.physical = physical;
+            this.nested = nested;
+            this.release = release;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            switch (method.getName()) {
+
+                case "close":
+                    if (!released) {
+                        released = true;
+                        cleanUp();
+                        release.run();
+                    }
+                    return null;
+
+                case "isClosed":
+                    return released || physical.isClosed();
+
+                case "prepareStatement":
+                    if (released) throw new SQLException("Connection lease already closed.");
+
+                    if (args.length == 1 && (physical == writer || readers.contains(physical))) {
+                        String sql = (String) args[0];
+                        Map<String, CachedStatement> cache = statementCache.computeIfAbsent(physical, key -> new HashMap<>());
+
+                        CachedStatement cached = cache.get(sql);
+
+                        // A statement still in use (by an outer lease or earlier in this one) would have its results clobbered.
+                        if ((cached == null && cache.size() >= MAX_CACHED_STATEMENTS) || (cached != null && cached.inUse)) {
+                            PreparedStatement uncached = physical.prepareStatement(sql);
+                            statements.add(uncached);
+                            return uncached;
+                        }
+
+                        if (cached == null || cached.statement.isClosed()) {
+                            cached = new CachedStatement(physical.prepareStatement(sql));
+                            cache.put(sql, cached);
+                        } else {
+                            cached.statement.clearParameters();
+                        }
+
+                        cached.inUse = true;
+                        borrowed.add(cached);
+
+                        return borrow(cached, (Connection) proxy);
+                    }
+
+                    PreparedStatement uncached = (PreparedStatement) invokeOnPhysical(method, args);
+                    statements.add(uncached);
+                    return uncached;
+
+                case "createStatement":
+                    if (released) throw new SQLException("Connection lease already closed.");
+
+                    Statement created = (Statement) invokeOnPhysical(method, args);
+                    statements.add(created);
+                    return created;
+
+                default:
+                    return invokeOnPhysical(method, args);
+            }
+        }
+
+        private Object invokeOnPhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private PreparedStatement borrow(CachedStatement cached, Connection leaseProxy) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class[]{PreparedStatement.class},
+                    new Borrowed(cached, leaseProxy));
+        }
+
+        // Open result sets keep a read transaction alive in WAL mode, so they must not outlive the lease.
+        // Statements closed by the caller are already given back; this is for the ones that weren't.
+        private void cleanUp() {
+
+            for (ResultSet resultSet : resultSets)
+                try { resultSet.close(); } catch (SQLException ignored) { }
+
+            for (Statement statement : statements)
+                try { statement.close(); } catch (SQLException ignored) { }
+
+            for (CachedStatement cached : borrowed) giveBack(cached);
+
+            resultSets.clear();
+            statements.clear();
+            borrowed.clear();
+
+            if (nested) return;
+
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } catch (SQLException ignored) { }
+        }
+
+        // A batch left behind by an error would otherwise be executed by the next user of the statement.
+        private void giveBack(CachedStatement cached) {
+            try {
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+            } catch (SQLException ignored) { }
+            cached.inUse = false;
+        }
+
+        /**
+         * A cached statement lent to the lease. Closing it closes its result sets and returns it to the cache.
+         */
+        private class Borrowed implements InvocationHandler {
+
+            private final CachedStatement cached;
+            private final Connection leaseProxy;
+
+            private final List<ResultSet> results = new ArrayList<>();
+
+            private boolean closed = false;
+
+            private Borrowed(CachedStatement cached, Connection leaseProxy) {
+                this.cached = cached;
+                this.leaseProxy = leaseProxy;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed && !released) close();
+                        closed = true;
+                        return null;
+                    case "isClosed": return closed || released;
+                    case "getConnection": return leaseProxy;
+                }
+
+                if (closed || released) throw new SQLException("Statement already closed.");
+
+                Object result;
+                try {
+                    result = method.invoke(cached.statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+
+                if (result instanceof ResultSet) {
+                    results.add((ResultSet) result);
+                    resultSets.add((ResultSet) result);
+                }
+                return result;
+            }
+
+            private void close() {
+
+                for (ResultSet resultSet : results) {
+                    try { resultSet.close(); } catch (SQLException ignored) { }
+                    resultSets.remove(resultSet);
+                }
+
+                results.clear();
+                borrowed.remove(cached);
+                giveBack(cached);
+            }
+        }
+    }
+
+}
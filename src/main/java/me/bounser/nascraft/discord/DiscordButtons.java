@@ -10,6 +10,7 @@ import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.TradeJournal;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.discord.alerts.DiscordAlerts;
 import me.bounser.nascraft.discord.images.*;
@@ -393,26 +394,27 @@ public class DiscordButtons extends ListenerAdapter {
 
             case "inventory":
 
-                Portfolio discordInventory = PortfoliosManager.getInstance().getPortfolio(uuid);
+                PortfoliosManager.getInstance().getPortfolioAsync(uuid).thenAccept(discordInventory -> {
 
-                if (discordInventory.getCapacity() < 40) {
+                    if (discordInventory.getCapacity() < 40) {
 
-                    List<Button> actionRow = new ArrayList<>();
+                        List<Button> actionRow = new ArrayList<>();
 
-                    actionRow.add(Button.success("i_buy", Lang.get().message(Message.DISCORD_BUY_SLOT) + Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), discordInventory.getNextSlotPrice(), Style.REDUCED_LENGTH)));
-                    actionRow.add(Button.danger("all", Lang.get().message(Message.DISCORD_SELL_ALL)));
+                        actionRow.add(Button.success("i_buy", Lang.get().message(Message.DISCORD_BUY_SLOT) + Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), discordInventory.getNextSlotPrice(), Style.REDUCED_LENGTH)));
+                        actionRow.add(Button.danger("all", Lang.get().message(Message.DISCORD_SELL_ALL)));
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
-                            .setEphemeral(true)
-                            .addActionRow(actionRow)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                        event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
+                                .setEphemeral(true)
+                                .addActionRow(actionRow)
+                                .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
 
-                } else {
+                    } else {
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
-                }
+                        event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
+                                .setEphemeral(true)
+                                .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    }
+                });
                 return;
 
             case "all":
@@ -436,55 +438,58 @@ public class DiscordButtons extends ListenerAdapter {
                     return;
                 }
 
-                PortfoliosManager.getInstance().getPortfolio(uuid).sellAll(
+                PortfoliosManager.getInstance().getPortfolioAsync(uuid).thenAccept(portfolio -> portfolio.sellAll(
                         value -> event.reply( Lang.get().message(Message.DISCORD_SOLD_EVERYTHING, "[VALUE]", Formatter.plainFormat
                                         (CurrenciesManager.getInstance().getVaultCurrency(), value, Style.ROUND_BASIC)))
                                 .setEphemeral(true)
                                 .queue(message -> message.deleteOriginal().queueAfter(25, TimeUnit.SECONDS))
-                );
+                ));
                 return;
 
             case "balance":
                 OfflinePlayer player2 = Bukkit.getOfflinePlayer(uuid);
 
-                double purse = Nascraft.getEconomy().getBalance(player2);
-                double inventory = PortfoliosManager.getInstance().getPortfolio(event.getUser().getId()).getInventoryValue();
-                float brokerValue = 0;
-                double total = purse + inventory + brokerValue;
+                PortfoliosManager.getInstance().getPortfolioAsync(uuid).thenAccept(portfolio -> {
 
-                String report = Lang.get().message(Message.DISCORD_BALANCE_REPORT)
-                        .replace("[PURSE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), (float) purse, Style.ROUND_BASIC))
-                        .replace("[INVENTORY-VALUE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), inventory, Style.ROUND_BASIC))
-                        .replace("[TOTAL]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), (float) total, Style.ROUND_BASIC));
+                    double purse = Nascraft.getEconomy().getBalance(player2);
+                    double inventory = portfolio.getInventoryValue();
+                    float brokerValue = 0;
+                    double total = purse + inventory + brokerValue;
 
-                /*
-                String text =
-                        "\n> :green_circle: :dollar: **Purse** (Minecraft): ``" + Formatter.formatDouble(purse) +
-                        "``\n> :yellow_circle: :school_satchel: **Discord Inventory**: ``" + Formatter.format(inventory, Style.ROUND_BASIC) +
-                        "``\n> :red_circle: :man_office_worker: **Broker-Managed**: ``" + Formatter.format(brokerValue, Style.ROUND_BASIC) +
-                        "``\n> \n" +
-                        ">  :abacus: **Total**: ``" + Formatter.formatDouble(total) + "``\n";
-                        */
+                    String report = Lang.get().message(Message.DISCORD_BALANCE_REPORT)
+                            .replace("[PURSE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), (float) purse, Style.ROUND_BASIC))
+                            .replace("[INVENTORY-VALUE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), inventory, Style.ROUND_BASIC))
+                            .replace("[TOTAL]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), (float) total, Style.ROUND_BASIC));
 
-                EmbedBuilder eb = new EmbedBuilder();
+                    /*
+                    String text =
+                            "\n> :green_circle: :dollar: **Purse** (Minecraft): ``" + Formatter.formatDouble(purse) +
+                            "``\n> :yellow_circle: :school_satchel: **Discord Inventory**: ``" + Formatter.format(inventory, Style.ROUND_BASIC) +
+                            "``\n> :red_circle: :man_office_worker: **Broker-Managed**: ``" + Formatter.format(brokerValue, Style.ROUND_BASIC) +
+                            "``\n> \n" +
+                            ">  :abacus: **Total**: ``" + Formatter.formatDouble(total) + "``\n";
+                            */
 
-                eb.setImage("attachment://image.png");
+                    EmbedBuilder eb = new EmbedBuilder();
 
-                eb.setTitle(Lang.get().message(Message.DISCORD_BALANCE_TITLE));
+                    eb.setImage("attachment://image.png");
 
-                eb.setFooter(Lang.get().message(Message.DISCORD_PURSE) + ": " + RoundUtils.roundToOne((float) (purse*100/total)) + "% " + Lang.get().message(Message.DISCORD_INVENTORY) + ": " + RoundUtils.roundToOne((float) (inventory*100/total)) + "%");
+                    eb.setTitle(Lang.get().message(Message.DISCORD_BALANCE_TITLE));
 
-                eb.setDescription(report);
+                    eb.setFooter(Lang.get().message(Message.DISCORD_PURSE) + ": " + RoundUtils.roundToOne((float) (purse*100/total)) + "% " + Lang.get().message(Message.DISCORD_INVENTORY) + ": " + RoundUtils.roundToOne((float) (inventory*100/total)) + "%");
 
-                eb.setColor(DiscordBot.mixColors(new Color(100,250,100),
-                                      new Color(250,250,100),
-                                      new Color(250,100,100),
-                                      purse/total, inventory/total, brokerValue/total));
+                    eb.setDescription(report);
 
-                event.replyEmbeds(eb.build())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())) , "image.png"))
-                        .setEphemeral(true)
-                        .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    eb.setColor(DiscordBot.mixColors(new Color(100,250,100),
+                                          new Color(250,250,100),
+                                          new Color(250,100,100),
+                                          purse/total, inventory/total, brokerValue/total));
+
+                    event.replyEmbeds(eb.build())
+                            .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())) , "image.png"))
+                            .setEphemeral(true)
+                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                });
                 return;
 
             case "hback":
@@ -589,12 +594,18 @@ public class DiscordButtons extends ListenerAdapter {
             
         } else if (!initial.equals("i")) { return; }
         
+        Item tradedItem = item;
+        int tradedQuantity = quantity;
+
+        PortfoliosManager.getInstance().getPortfolioAsync(uuid).thenAccept(discordInventory -> trade(event, uuid, tradedItem, tradedQuantity, discordInventory));
+    }
+
+    private void trade(ButtonInteractionEvent event, UUID uuid, Item item, int quantity, Portfolio discordInventory) {
+
         double value;
 
         OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
 
-        Portfolio discordInventory = PortfoliosManager.getInstance().getPortfolio(uuid);
-
         boolean limitReached = !item.getPrice().canStockChange(quantity, true);
 
         switch (String.valueOf(event.getComponentId().charAt(0))) {
@@ -650,7 +661,7 @@ public class DiscordButtons extends ListenerAdapter {
 
                 Trade buyTrade = new Trade(item, LocalDateTime.now(), value, quantity, true, true, uuid);
 
-                database.saveTrade(buyTrade);
+                TradeJournal.getInstance().log(buyTrade);
                 if (Config.getInstance().getLogChannelEnabled()) DiscordLog.getInstance().sendTradeLog(buyTrade);
 
                 event.reply(buyText)
@@ -709,7 +720,7 @@ public class DiscordButtons extends ListenerAdapter {
 
                 Trade sellTrade = new Trade(item, LocalDateTime.now(), value, quantity, false, true, uuid);
 
-                database.saveTrade(sellTrade);
+                TradeJournal.getInstance().log(sellTrade);
                 if (Config.getInstance().getLogChannelEnabled()) DiscordLog.getInstance().sendTradeLog(sellTrade);
 
                 event.reply(sellText)
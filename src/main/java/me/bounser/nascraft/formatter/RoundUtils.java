@@ -43,4 +43,38 @@ public class RoundUtils {
         return bd.floatValue();
     }
 
+    private static final double[] POWERS_OF_TEN = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12};
+
+    /**
+     * Half-up rounding of the decimal representation of a double, the same as new BigDecimal(Double.toString(value)).
+     * Only values whose scaled fraction lands within a few ulps of a half, such as 1.005 * 100, are checked against
+     * the decimal string; the rest are rounded without allocating.
+     */
+    public static double roundHalfUp(double value, int decimals) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) return value;
+
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length)
+            return new BigDecimal(Double.toString(value)).setScale(decimals, RoundingMode.HALF_UP).doubleValue();
+
+        double scale = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * scale;
+
+        // Beyond 2^52 every double is already an integer
+        if (scaled >= 4.503599627370496E15) return value;
+
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+
+        // Too close to the half to tell from the scaled double whether the decimal value is above or below it
+        if (Math.abs(fraction - 0.5) <= 4 * Math.ulp(scaled))
+            return new BigDecimal(Double.toString(value)).setScale(decimals, RoundingMode.HALF_UP).doubleValue();
+
+        double rounded = fraction > 0.5 ? floor + 1 : floor;
+
+        if (rounded == 0) return 0;
+
+        return value < 0 ? -rounded / scale : rounded / scale;
+    }
+
 }
@@ -5,10 +5,12 @@ import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.DebtWriter;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
@@ -18,18 +20,28 @@ import org.bukkit.entity.Player;
 
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class DebtManager {
 
     private static DebtManager instance;
 
+    // Outstanding debt and lifetime interests of every player, the database is only written behind them
+    private final Map<UUID, Double> ledger = new ConcurrentHashMap<>();
+    private final Map<UUID, Double> interestsPaid = new ConcurrentHashMap<>();
+
+    private final MarginEngine marginEngine = new MarginEngine(this);
+
     public static DebtManager getInstance() { return instance == null ? instance = new DebtManager() : instance; }
 
     private DebtManager() {
         try {
+            loadLedger();
             interestCollector();
             checkMargins();
         } catch (Exception e) {
@@ -38,38 +50,34 @@ public class DebtManager {
         }
     }
 
+    private void loadLedger() {
+
+        HashMap<UUID, Double> debtors = DatabaseManager.get().getDatabase().getUUIDAndDebt();
+
+        if (debtors == null) {
+            Nascraft.getInstance().getLogger().warning("getUUIDAndDebt() returned null while loading the debt ledger");
+            return;
+        }
+
+        for (Map.Entry<UUID, Double> entry : debtors.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) continue;
+            ledger.put(entry.getKey(), entry.getValue());
+            marginEngine.markDirty(entry.getKey());
+        }
+
+        HashMap<UUID, Double> payers = DatabaseManager.get().getDatabase().getUUIDAndInterestsPaid();
+
+        if (payers != null)
+            for (Map.Entry<UUID, Double> entry : payers.entrySet())
+                if (entry.getValue() != null) interestsPaid.put(entry.getKey(), entry.getValue());
+    }
+
     public void checkMargins() {
         try {
-            Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(),
+            Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(),
                     () -> {
                         try {
-                            HashMap<UUID, Double> debtors = DatabaseManager.get().getDatabase().getUUIDAndDebt();
-
-                            // Fix: Check if debtors is null before using it
-                            if (debtors == null) {
-                                Nascraft.getInstance().getLogger().warning("getUUIDAndDebt() returned null in checkMargins()");
-                                return; // Skip this execution if debtors is null
-                            }
-
-                            for (UUID debtorUUID : debtors.keySet()) {
-                                try {
-                                    Player player = Bukkit.getPlayer(debtorUUID);
-                                    double maxDebt = getMaximumLoan(debtorUUID);
-
-                                    if (player == null) {
-                                        if (debtors.get(debtorUUID) >= maxDebt)
-                                            forceMarginCall(debtorUUID);
-                                    } else {
-                                        if (debtors.get(debtorUUID) >= maxDebt) {
-                                            forceMarginCall(debtorUUID);
-                                        } else if (debtors.get(debtorUUID) >= maxDebt * 0.95) {
-                                            Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_ALERT));
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    Nascraft.getInstance().getLogger().warning("Error processing debtor " + debtorUUID + ": " + e.getMessage());
-                                }
-                            }
+                            marginEngine.evaluate();
                         } catch (Exception e) {
                             Nascraft.getInstance().getLogger().severe("Error in checkMargins task: " + e.getMessage());
                         }
@@ -81,46 +89,17 @@ public class DebtManager {
 
     public void interestCollector() {
         try {
-            Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(),
+            Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(),
                     () -> {
                         try {
-                            HashMap<UUID, Double> debtors = DatabaseManager.get().getDatabase().getUUIDAndDebt();
-
-                            // Fix: Check if debtors is null before using it
-                            if (debtors == null) {
-                                Nascraft.getInstance().getLogger().warning("getUUIDAndDebt() returned null in interestCollector()");
-                                return; // Skip this execution if debtors is null
-                            }
-
-                            for (UUID debtorUUID : debtors.keySet()) {
-                                try {
-                                    double interest = Math.max(debtors.get(debtorUUID) * Config.getInstance().getLoansDailyInterest(), Config.getInstance().getLoansMinimumInterest());
-                                    OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(debtorUUID);
-                                    Currency currency = CurrenciesManager.getInstance().getDefaultCurrency();
-
-                                    if (MoneyManager.getInstance().hasEnoughMoney(offlinePlayer, currency, interest)) {
-                                        MoneyManager.getInstance().simpleWithdraw(offlinePlayer, CurrenciesManager.getInstance().getDefaultCurrency(), interest);
-                                        DatabaseManager.get().getDatabase().addInterestPaid(debtorUUID, interest);
-
-                                        Player player = Bukkit.getPlayer(debtorUUID);
-
-                                        if (player != null)
-                                            Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_INTEREST_PAYED)
-                                                    .replace("[AMOUNT]", Formatter.format(CurrenciesManager.getInstance().getDefaultCurrency(), interest, Style.ROUND_BASIC)));
-
-                                    } else {
-                                        DatabaseManager.get().getDatabase().increaseDebt(debtorUUID, interest);
-
-                                        Player player = Bukkit.getPlayer(debtorUUID);
-
-                                        if (player != null)
-                                            Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_INTEREST_ACC)
-                                                    .replace("[AMOUNT]", Formatter.format(CurrenciesManager.getInstance().getDefaultCurrency(), interest, Style.ROUND_BASIC)));
-                                    }
-                                } catch (Exception e) {
-                                    Nascraft.getInstance().getLogger().warning("Error processing interest for debtor " + debtorUUID + ": " + e.getMessage());
-                                }
-                            }
+                            Map<UUID, Double> interests = new HashMap<>();
+
+                            for (Map.Entry<UUID, Double> entry : ledger.entrySet())
+                                interests.put(entry.getKey(), Math.max(entry.getValue() * Config.getInstance().getLoansDailyInterest(), Config.getInstance().getLoansMinimumInterest()));
+
+                            if (!interests.isEmpty())
+                                Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> collectInterests(interests));
+
                         } catch (Exception e) {
                             Nascraft.getInstance().getLogger().severe("Error in interestCollector task: " + e.getMessage());
                         }
@@ -130,6 +109,42 @@ public class DebtManager {
         }
     }
 
+    // Runs on the main thread, the economy isn't safe to touch from anywhere else
+    private void collectInterests(Map<UUID, Double> interests) {
+
+        Currency currency = CurrenciesManager.getInstance().getDefaultCurrency();
+
+        for (Map.Entry<UUID, Double> entry : interests.entrySet()) {
+
+            UUID debtorUUID = entry.getKey();
+            double interest = entry.getValue();
+
+            try {
+                OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(debtorUUID);
+                Player player = Bukkit.getPlayer(debtorUUID);
+
+                if (MoneyManager.getInstance().hasEnoughMoney(offlinePlayer, currency, interest)) {
+                    MoneyManager.getInstance().simpleWithdraw(offlinePlayer, currency, interest);
+                    interestsPaid.merge(debtorUUID, interest, Double::sum);
+                    DebtWriter.getInstance().interestsChanged(debtorUUID);
+
+                    if (player != null)
+                        Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_INTEREST_PAYED)
+                                .replace("[AMOUNT]", Formatter.format(currency, interest, Style.ROUND_BASIC)));
+
+                } else {
+                    increaseDebt(debtorUUID, interest);
+
+                    if (player != null)
+                        Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_INTEREST_ACC)
+                                .replace("[AMOUNT]", Formatter.format(currency, interest, Style.ROUND_BASIC)));
+                }
+            } catch (Exception e) {
+                Nascraft.getInstance().getLogger().warning("Error processing interest for debtor " + debtorUUID + ": " + e.getMessage());
+            }
+        }
+    }
+
     private static long calculateInitialDelay(LocalTime currentTime, LocalTime targetTime) {
         if (currentTime.isBefore(targetTime)) {
             return Duration.between(currentTime, targetTime).toSeconds();
@@ -141,38 +156,48 @@ public class DebtManager {
         }
     }
 
-    public double getDebtOfPlayer(UUID uuid) {
-        try {
-            return DatabaseManager.get().getDatabase().getDebt(uuid);
-        } catch (Exception e) {
-            Nascraft.getInstance().getLogger().warning("Error getting debt for player " + uuid + ": " + e.getMessage());
-            return 0.0; // Return 0 as a safe default
-        }
-    }
+    public double getDebtOfPlayer(UUID uuid) { return ledger.getOrDefault(uuid, 0.0); }
 
     public void decreaseDebt(UUID uuid, double debt) {
-        try {
-            DatabaseManager.get().getDatabase().decreaseDebt(uuid, debt);
-        } catch (Exception e) {
-            Nascraft.getInstance().getLogger().warning("Error decreasing debt for player " + uuid + ": " + e.getMessage());
-        }
+        if (debt <= 0) return;
+
+        ledger.computeIfPresent(uuid, (key, value) -> value - debt <= 0 ? null : value - debt);
+        debtChanged(uuid);
     }
 
     public void increaseDebt(UUID uuid, double debt) {
         try {
-            DatabaseManager.get().getDatabase().increaseDebt(uuid, debt);
+            ledger.merge(uuid, debt, Double::sum);
+
+            if (Bukkit.isPrimaryThread())
+                marginEngine.updateCollateral(uuid, new HashMap<>(PortfoliosManager.getInstance().getPortfolio(uuid).getContent()));
+
         } catch (Exception e) {
             Nascraft.getInstance().getLogger().warning("Error increasing debt for player " + uuid + ": " + e.getMessage());
         }
+
+        debtChanged(uuid);
     }
 
-    public double getLifeTimeInterests(UUID uuid) {
-        try {
-            return DatabaseManager.get().getDatabase().getInterestsPaid(uuid);
-        } catch (Exception e) {
-            Nascraft.getInstance().getLogger().warning("Error getting lifetime interests for player " + uuid + ": " + e.getMessage());
-            return 0.0; // Return 0 as a safe default
-        }
+    private void debtChanged(UUID uuid) {
+        marginEngine.markDirty(uuid);
+        DebtWriter.getInstance().debtChanged(uuid);
+    }
+
+    public double getLifeTimeInterests(UUID uuid) { return interestsPaid.getOrDefault(uuid, 0.0); }
+
+    public double getAllOutstandingDebt() {
+        double total = 0;
+        for (double debt : ledger.values()) total += debt;
+        return total;
+    }
+
+    public int getDebtors() { return ledger.size(); }
+
+    public double getAllInterestsPaid() {
+        double total = 0;
+        for (double paid : interestsPaid.values()) total += paid;
+        return total;
     }
 
     public double getMaximumLoan(UUID uuid) {
@@ -202,39 +227,85 @@ public class DebtManager {
                 return 0.0;
             }
 
-            double maxLoan = 0;
+            return getMaximumLoan(portfolio.getContent());
+        } catch (Exception e) {
+            Nascraft.getInstance().getLogger().warning("Error calculating maximum loan for player " + uuid + ": " + e.getMessage());
+            return 0.0; // Return 0 as a safe default
+        }
+    }
 
-            for (Item item : portfolio.getContent().keySet()) {
-                if (item != null) {
-                    Integer quantity = portfolio.getContent().get(item);
-                    if (quantity != null) {
-                        maxLoan += item.sellPrice(quantity) * (1-Config.getInstance().getLoanSecurityMargin());
-                    }
+    /**
+     * Maximum loan backed by the given content. Safe to call off the main thread.
+     */
+    public double getMaximumLoan(Map<Item, Integer> content) {
+        try {
+            int[] indices = new int[content.size()];
+            float[] quantities = new float[content.size()];
+            double[] costs = new double[content.size()];
+
+            double fallback = 0;
+            int lines = 0;
+
+            for (Map.Entry<Item, Integer> entry : content.entrySet()) {
+                Item item = entry.getKey();
+                Integer quantity = entry.getValue();
+
+                if (item == null || quantity == null) continue;
+
+                int index = MarketManager.getInstance().getQuoteIndex(item);
+
+                if (index == -1) {
+                    fallback += item.sellPrice(quantity);
+                    continue;
                 }
+
+                indices[lines] = index;
+                quantities[lines] = quantity * item.getMultiplier();
+                lines++;
             }
 
-            return maxLoan;
+            double worth = MarketManager.getInstance().quote(Arrays.copyOf(indices, lines), quantities, costs) + fallback;
+
+            return worth * (1-Config.getInstance().getLoanSecurityMargin());
         } catch (Exception e) {
-            Nascraft.getInstance().getLogger().warning("Error calculating maximum loan for player " + uuid + ": " + e.getMessage());
+            Nascraft.getInstance().getLogger().warning("Error calculating maximum loan: " + e.getMessage());
             return 0.0; // Return 0 as a safe default
         }
     }
 
+    public boolean isDebtor(UUID uuid) { return ledger.containsKey(uuid); }
+
+    /**
+     * Called with a copy of the content of a portfolio every time it changes.
+     */
+    public void onPortfolioChange(UUID uuid, Map<Item, Integer> content) {
+        if (ledger.containsKey(uuid)) marginEngine.updateCollateral(uuid, content);
+    }
+
+    public MarginEngine getMarginEngine() { return marginEngine; }
+
     public void forceMarginCall(UUID uuid) {
         try {
+            // The margin engine found the player under water on another thread, so it is checked again here
             double debt = getDebtOfPlayer(uuid);
             double maxLoan = getMaximumLoan(uuid);
+            boolean overMaxSize = Config.getInstance().getLoansMaxSize() < debt;
+
+            if (debt < maxLoan && !overMaxSize) return;
+
             Currency currency = CurrenciesManager.getInstance().getDefaultCurrency();
             OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
 
             double toPay = debt - maxLoan;
 
-            if (Config.getInstance().getLoansMaxSize() < debt)
+            if (overMaxSize)
                 toPay = Math.max(toPay, debt - Config.getInstance().getLoansMaxSize());
 
+            if (toPay <= 0) return;
+
             if (MoneyManager.getInstance().hasEnoughMoney(player, currency, toPay)) {
                 MoneyManager.getInstance().simpleWithdraw(player, currency, toPay);
-                DatabaseManager.get().getDatabase().decreaseDebt(uuid, toPay);
+                decreaseDebt(uuid, toPay);
 
                 Player onlinePlayer = Bukkit.getPlayer(uuid);
 
@@ -253,10 +324,10 @@ public class DebtManager {
                     try {
                         if (debt <= result) {
                             MoneyManager.getInstance().simpleWithdraw(player, currency, debt);
-                            DatabaseManager.get().getDatabase().decreaseDebt(uuid, debt);
+                            decreaseDebt(uuid, debt);
                         } else {
                             MoneyManager.getInstance().simpleWithdraw(player, currency, result);
-                            DatabaseManager.get().getDatabase().decreaseDebt(uuid, result);
+                            decreaseDebt(uuid, result);
                         }
 
                         Player onlinePlayer = Bukkit.getPlayer(uuid);
@@ -2,6 +2,7 @@ package me.bounser.nascraft.managers;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.market.ItemFingerprint;
 import me.bounser.nascraft.market.MarketManager;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -19,8 +20,10 @@ public class InventoryManager {
 
             int untilFull = 0;
 
+            ItemFingerprint fingerprint = MarketManager.getInstance().getFingerprint(itemStack);
+
             for (ItemStack is : player.getInventory()) {
-                if(is != null && MarketManager.getInstance().isSimilarEnough(is, itemStack)) {
+                if(is != null && fingerprint.matches(is)) {
                     untilFull += itemStack.getType().getMaxStackSize() - is.getAmount();
                 }
             }
@@ -0,0 +1,163 @@
+package me.bounser.nascraft.managers;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.lang.Lang;
+import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.market.unit.Item;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates the margin of every debtor off the main thread. Only debtors whose debt or collateral changed,
+ * or who hold an item whose price moved since the last pass, are evaluated again. Margin calls and alerts
+ * are handed back to the main thread.
+ */
+public class MarginEngine {
+
+    private final DebtManager debtManager;
+
+    // Latest known content of the portfolio of each debtor, replaced whole on every change
+    private final Map<UUID, Map<Item, Integer>> collateral = new ConcurrentHashMap<>();
+
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    // Only touched by the evaluating thread
+    private final Map<UUID, Map<Item, Integer>> indexed = new HashMap<>();
+    private final Map<Item, Set<UUID>> holders = new HashMap<>();
+    private final Map<Item, Double> lastValues = new HashMap<>();
+    private final Set<UUID> warned = new HashSet<>();
+
+    private long evaluations = 0;
+
+    public MarginEngine(DebtManager debtManager) {
+        this.debtManager = debtManager;
+    }
+
+    public void markDirty(UUID uuid) { dirty.add(uuid); }
+
+    public void updateCollateral(UUID uuid, Map<Item, Integer> content) {
+        collateral.put(uuid, content);
+        dirty.add(uuid);
+    }
+
+    public synchronized void evaluate() {
+
+        for (Map.Entry<Item, Set<UUID>> entry : holders.entrySet()) {
+
+            double value = entry.getKey().getPrice().getValue();
+            Double last = lastValues.put(entry.getKey(), value);
+
+            if (last == null || last != value) dirty.addAll(entry.getValue());
+        }
+
+        if (dirty.isEmpty()) return;
+
+        List<UUID> calls = new ArrayList<>();
+        List<UUID> alerts = new ArrayList<>();
+
+        Iterator<UUID> iterator = dirty.iterator();
+
+        while (iterator.hasNext()) {
+
+            UUID uuid = iterator.next();
+            iterator.remove();
+
+            try {
+                double debt = debtManager.getDebtOfPlayer(uuid);
+
+                if (debt <= 0) {
+                    forget(uuid);
+                    continue;
+                }
+
+                Map<Item, Integer> content = collateral.get(uuid);
+
+                if (content == null) {
+                    content = new HashMap<>(DatabaseManager.get().getDatabase().retrievePortfolio(uuid));
+                    collateral.putIfAbsent(uuid, content);
+                    content = collateral.get(uuid);
+                }
+
+                if (indexed.get(uuid) != content) index(uuid, content);
+
+                double maxLoan = debtManager.getMaximumLoan(content);
+                evaluations++;
+
+                if (debt >= maxLoan) {
+                    calls.add(uuid);
+                } else if (debt >= maxLoan * 0.95) {
+                    if (warned.add(uuid)) alerts.add(uuid);
+                } else {
+                    warned.remove(uuid);
+                }
+
+            } catch (Exception e) {
+                Nascraft.getInstance().getLogger().warning("Error evaluating margin of debtor " + uuid + ": " + e.getMessage());
+            }
+        }
+
+        // Debtors under water are checked again on the next pass in case the call couldn't cover them
+        dirty.addAll(calls);
+
+        if (calls.isEmpty() && alerts.isEmpty()) return;
+
+        Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
+
+            for (UUID uuid : calls) debtManager.forceMarginCall(uuid);
+
+            for (UUID uuid : alerts) {
+                Player player = Bukkit.getPlayer(uuid);
+                if (player != null) Lang.get().message(player, Lang.get().message(Message.PORTFOLIO_DEBT_ALERT));
+            }
+        });
+    }
+
+    private void index(UUID uuid, Map<Item, Integer> content) {
+
+        unindex(uuid);
+
+        indexed.put(uuid, content);
+
+        for (Item item : content.keySet()) {
+            if (item == null) continue;
+            holders.computeIfAbsent(item, i -> new HashSet<>()).add(uuid);
+            lastValues.putIfAbsent(item, item.getPrice().getValue());
+        }
+    }
+
+    private void unindex(UUID uuid) {
+
+        Map<Item, Integer> previous = indexed.remove(uuid);
+
+        if (previous == null) return;
+
+        for (Item item : previous.keySet()) {
+
+            Set<UUID> uuids = holders.get(item);
+
+            if (uuids == null) continue;
+
+            uuids.remove(uuid);
+
+            if (uuids.isEmpty()) {
+                holders.remove(item);
+                lastValues.remove(item);
+            }
+        }
+    }
+
+    private void forget(UUID uuid) {
+        unindex(uuid);
+        collateral.remove(uuid);
+        warned.remove(uuid);
+    }
+
+    public synchronized int getTrackedDebtors() { return indexed.size(); }
+
+    public synchronized long getEvaluations() { return evaluations; }
+
+}
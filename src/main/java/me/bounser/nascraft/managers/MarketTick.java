@@ -0,0 +1,320 @@
+package me.bounser.nascraft.managers;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.advancedgui.LayoutModifier;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.market.Leaderboards;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.PriceIndices;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.Resolution;
+import me.bounser.nascraft.web.WebSnapshots;
+import me.leoko.advancedgui.manager.GuiWallManager;
+import me.leoko.advancedgui.utils.GuiWallInstance;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update of the market done every minute. Each parent item gets its noise, its value of the minute, the decay
+ * of its operations and its instant for the history in a single pass, splitting the items among the threads of
+ * a pool. The change of the market is added up in the same pass.
+ */
+public class MarketTick {
+
+    public enum Phase { HOURLY, ITEMS, HISTORY, LAYOUT, WEB }
+
+    // Null in deterministic mode, where every item is updated on the calling thread in market order
+    private final ForkJoinPool pool;
+
+    // Number of ticks between each application of noise, 0 if the noise has its own timer
+    private final int noiseEvery;
+
+    private final Plugin AGUI = Bukkit.getPluginManager().getPlugin("AdvancedGUI");
+
+    private volatile long ticks = 0;
+    private int lastHour = LocalDateTime.now().getHour();
+
+    // Nanoseconds per phase, replaced as a whole after each tick so they can be read from any thread
+    private volatile long[] lastTimings = new long[Phase.values().length];
+    private volatile long[] totalTimings = new long[Phase.values().length];
+
+    private static MarketTick instance;
+
+    public static MarketTick getInstance() { return instance == null ? instance = new MarketTick() : instance; }
+
+    private MarketTick() {
+
+        int noiseTime = Config.getInstance().getNoiseTime();
+        noiseEvery = noiseTime >= 60 && noiseTime % 60 == 0 ? noiseTime / 60 : 0;
+
+        if (Config.getInstance().getMarketTickDeterministic()) {
+            pool = null;
+            return;
+        }
+
+        int threads = Config.getInstance().getMarketTickThreads();
+        if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
+
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Nascraft-MarketTick-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Whether noise is applied by the tick. If not, it has to be applied by a timer of its own.
+     */
+    public boolean appliesNoise() { return noiseEvery > 0; }
+
+    public synchronized void tick() {
+
+        long[] timings = new long[Phase.values().length];
+        LocalDateTime now = LocalDateTime.now();
+
+        long start = System.nanoTime();
+
+        if (now.getHour() != lastHour) {
+            lastHour = now.getHour();
+            hourly();
+        }
+
+        long hourlyEnd = System.nanoTime();
+        timings[Phase.HOURLY.ordinal()] = hourlyEnd - start;
+
+        List<Item> parents = MarketManager.getInstance().getAllParentItems();
+
+        // Without items only the hourly phase runs, the rest are recorded as taking no time
+        if (!parents.isEmpty()) updateMarket(parents, now, timings, hourlyEnd);
+
+        long[] totals = totalTimings.clone();
+        for (int i = 0; i < timings.length; i++) totals[i] += timings[i];
+
+        totalTimings = totals;
+        lastTimings = timings;
+
+        // Counted for every recorded tick, empty or not, so the averages divide by the right number
+        ticks++;
+    }
+
+    private void updateMarket(List<Item> parents, LocalDateTime now, long[] timings, long hourlyEnd) {
+
+        boolean noiseEnabled = Config.getInstance().getPriceNoise();
+        boolean noise = noiseEnabled && noiseEvery > 0 && ticks % noiseEvery == 0;
+
+        // Ranked with the values of the minute that just ended, before the volumes are restarted
+        Leaderboards.getInstance().rebuild(parents, MarketManager.getInstance().getAllItems());
+
+        Partial total = new Partial();
+
+        for (Partial partial : updateItems(parents, noise, noiseEnabled, now))
+            total.merge(partial);
+
+        PriceIndices.getInstance().update();
+
+        MarketManager.getInstance().updateMarketChange1h(total.change/parents.size());
+        MarketManager.getInstance().setChange1h(total.change1h*100);
+
+        long itemsEnd = System.nanoTime();
+        timings[Phase.ITEMS.ordinal()] = itemsEnd - hourlyEnd;
+
+        saveHistory(total.history);
+
+        long historyEnd = System.nanoTime();
+        timings[Phase.HISTORY.ordinal()] = historyEnd - itemsEnd;
+
+        updateLayouts();
+
+        long layoutEnd = System.nanoTime();
+        timings[Phase.LAYOUT.ordinal()] = layoutEnd - historyEnd;
+
+        if (Config.getInstance().getWebEnabled()) WebSnapshots.getInstance().refresh();
+
+        timings[Phase.WEB.ordinal()] = System.nanoTime() - layoutEnd;
+    }
+
+    private List<Partial> updateItems(List<Item> items, boolean noise, boolean noiseEnabled, LocalDateTime now) {
+
+        List<Partial> partials = new ArrayList<>();
+
+        if (pool == null) {
+            Partial partial = new Partial();
+            for (Item item : items) update(item, noise, noiseEnabled, now, partial);
+            partials.add(partial);
+            return partials;
+        }
+
+        int chunks = Math.min(items.size(), pool.getParallelism());
+
+        List<Callable<Partial>> tasks = new ArrayList<>(chunks);
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            List<Item> slice = items.subList(items.size() * chunk / chunks, items.size() * (chunk + 1) / chunks);
+
+            tasks.add(() -> {
+                Partial partial = new Partial();
+                for (Item item : slice) update(item, noise, noiseEnabled, now, partial);
+                return partial;
+            });
+        }
+
+        // Merged in the order of the items, whichever chunk finishes first
+        for (Future<Partial> future : pool.invokeAll(tasks)) {
+            try {
+                partials.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                Nascraft.getInstance().getLogger().severe("Error updating items in market tick: " + e.getCause());
+            }
+        }
+
+        return partials;
+    }
+
+    private void update(Item item, boolean noise, boolean noiseEnabled, LocalDateTime now, Partial partial) {
+
+        Price price = item.getPrice();
+
+        if (noise) price.applyNoise();
+
+        if (noiseEnabled) partial.change += price.getChange();
+
+        item.lowerOperations();
+
+        price.addValueToShortTermStorage();
+
+        double value = price.getValue();
+
+        partial.change1h += value/price.getValueAnHourAgo()-1;
+
+        PriceIndices.getInstance().volumeTraded(item, item.getVolume());
+
+        item.getItemStats().addInstant(new Instant(now, value, item.getVolume()), partial.history);
+        item.restartVolume();
+    }
+
+    private void hourly() {
+
+        for (Item item : MarketManager.getInstance().getAllItems())
+            item.getPrice().restartHourLimits();
+
+        MarketManager.getInstance().setOperationsLastHour(0);
+
+        if (Config.getInstance().getAlertsMenuEnabled())
+            DatabaseManager.get().getDatabase().purgeAlerts();
+    }
+
+    private void saveHistory(List<HistoryEntry> history) {
+
+        if (history.isEmpty()) return;
+
+        boolean rolledUp = false;
+
+        for (HistoryEntry entry : history) {
+            if (entry.isOpen()) continue;
+
+            entry.getItem().getItemStats().recordHistory(entry);
+            if (entry.getResolution() != Resolution.FIVE_MINUTES) rolledUp = true;
+        }
+
+        DatabaseManager.get().getDatabase().saveHistory(history);
+
+        if (rolledUp) DatabaseManager.get().getDatabase().pruneHistory();
+    }
+
+    private void updateLayouts() {
+
+        if (AGUI == null || !AGUI.isEnabled() || GuiWallManager.getInstance().getActiveInstances() == null) return;
+
+        for (GuiWallInstance instance : GuiWallManager.getInstance().getActiveInstances()) {
+
+            if (instance.getLayout().getName().equals("Nascraft"))
+                for (Player player : Bukkit.getOnlinePlayers())
+                    if (instance.getInteraction(player) != null)
+                        LayoutModifier.getInstance().updateMainPage(instance.getInteraction(player).getComponentTree(), true, player);
+        }
+    }
+
+    /**
+     * @return duration in milliseconds of the phase during the last tick.
+     */
+    public double getLastTiming(Phase phase) { return lastTimings[phase.ordinal()] / 1_000_000.0; }
+
+    /**
+     * @return average duration in milliseconds of the phase since the plugin started.
+     */
+    public double getAverageTiming(Phase phase) {
+        long ticks = this.ticks;
+        return ticks == 0 ? 0 : totalTimings[phase.ordinal()] / 1_000_000.0 / ticks;
+    }
+
+    public long getTicks() { return ticks; }
+
+    public boolean isDeterministic() { return pool == null; }
+
+    public void shutdown() {
+
+        if (pool != null) {
+            pool.shutdown();
+
+            try {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        saveOpenBuckets();
+    }
+
+    /**
+     * Writes the 4 hour and daily buckets in progress, so a day without a tick at midnight still has its row.
+     */
+    private synchronized void saveOpenBuckets() {
+
+        List<HistoryEntry> open = new ArrayList<>();
+
+        for (Item item : MarketManager.getInstance().getAllParentItems())
+            item.getItemStats().addOpenEntries(open);
+
+        if (open.isEmpty()) return;
+
+        try {
+            DatabaseManager.get().getDatabase().saveHistory(open);
+        } catch (RuntimeException e) {
+            Nascraft.getInstance().getLogger().warning("Error saving price history in progress: " + e.getMessage());
+        }
+    }
+
+    private static class Partial {
+
+        private float change = 0;
+        private float change1h = 0;
+
+        private final List<HistoryEntry> history = new ArrayList<>();
+
+        private void merge(Partial partial) {
+            change += partial.change;
+            change1h += partial.change1h;
+            history.addAll(partial.history);
+        }
+    }
+
+}
@@ -83,9 +83,9 @@ public class MoneyManager {
                 economy.depositPlayer(player, amount);
 
                 if (taxRate == 0)
-                    DatabaseManager.get().getDatabase().addTransaction(-amount, Math.abs(amount - amount / taxRate));
-                else
                     DatabaseManager.get().getDatabase().addTransaction(-amount, 0);
+                else
+                    DatabaseManager.get().getDatabase().addTransaction(-amount, Math.abs(amount - amount / taxRate));
 
                 break;
 
@@ -105,6 +105,23 @@ public class MoneyManager {
         }
     }
 
+    /**
+     * Deposit for several trades at once, registered as a single flow with the taxes already computed.
+     */
+    public void bulkDeposit(OfflinePlayer player, Currency currency, double amount, double collectedTaxes) {
+
+        switch (currency.getCurrencyType()) {
+
+            case VAULT:
+                economy.depositPlayer(player, amount);
+                DatabaseManager.get().getDatabase().addTransaction(-amount, collectedTaxes);
+                break;
+
+            case CUSTOM:
+                simpleDeposit(player, currency, amount);
+        }
+    }
+
     public void simpleDeposit(OfflinePlayer player, Currency currency, double amount) {
 
         switch (currency.getCurrencyType()) {
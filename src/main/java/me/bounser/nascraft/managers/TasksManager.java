@@ -1,24 +1,18 @@
 package me.bounser.nascraft.managers;
 
 import me.bounser.nascraft.Nascraft;
-import me.bounser.nascraft.advancedgui.LayoutModifier;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.discord.alerts.DiscordAlerts;
 import me.bounser.nascraft.discord.DiscordBot;
 import me.bounser.nascraft.discord.DiscordLog;
 import me.bounser.nascraft.market.MarketManager;
-import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.PriceIndices;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
-import me.leoko.advancedgui.manager.GuiWallManager;
-import me.leoko.advancedgui.utils.GuiWallInstance;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
-import org.bukkit.plugin.Plugin;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 public class TasksManager {
@@ -27,8 +21,6 @@ public class TasksManager {
 
     private final int ticksPerSecond = 20;
 
-    private final Plugin AGUI = Bukkit.getPluginManager().getPlugin("AdvancedGUI");
-
     public static TasksManager getInstance() { return instance == null ? instance = new TasksManager() : instance; }
 
     private TasksManager(){
@@ -40,11 +32,9 @@ public class TasksManager {
 
 
             saveDataTask();
-            noiseTask((int) timeRemaining.getSeconds());
+            if (!MarketTick.getInstance().appliesNoise()) noiseTask((int) timeRemaining.getSeconds());
             discordTask((int) timeRemaining.getSeconds());
-            shortTermPricesTask((int) timeRemaining.getSeconds());
-            hourlyTask();
-            saveInstants();
+            marketTickTask((int) timeRemaining.getSeconds());
 
             DatabaseManager.get().getDatabase().purgeHistory();
         } catch (Exception e) {
@@ -53,39 +43,17 @@ public class TasksManager {
         }
     }
 
-    private void shortTermPricesTask(int delay) {
+    private void marketTickTask(int delay) {
         try {
             Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
                 try {
-                    float allChanges = 0;
-                    for (Item item : MarketManager.getInstance().getAllParentItems()) {
-                        if (Config.getInstance().getPriceNoise())
-                            allChanges += item.getPrice().getChange();
-
-                        item.lowerOperations();
-
-                        item.getPrice().addValueToShortTermStorage();
-                    }
-
-                    MarketManager.getInstance().updateMarketChange1h(allChanges/MarketManager.getInstance().getAllParentItems().size());
-
-                    if (AGUI != null &&
-                            AGUI.isEnabled() &&
-                            GuiWallManager.getInstance().getActiveInstances() != null)
-
-                        for (GuiWallInstance instance : GuiWallManager.getInstance().getActiveInstances()) {
-
-                            if (instance.getLayout().getName().equals("Nascraft"))
-                                for (Player player : Bukkit.getOnlinePlayers())
-                                    if (instance.getInteraction(player) != null)
-                                        LayoutModifier.getInstance().updateMainPage(instance.getInteraction(player).getComponentTree(), true, player);
-                        }
+                    MarketTick.getInstance().tick();
                 } catch (Exception e) {
-                    Nascraft.getInstance().getLogger().severe("Error in shortTermPricesTask: " + e.getMessage());
+                    Nascraft.getInstance().getLogger().severe("Error in marketTickTask: " + e.getMessage());
                 }
             }, (long) delay * ticksPerSecond, 60L * ticksPerSecond);
         } catch (Exception e) {
-            Nascraft.getInstance().getLogger().severe("Could not schedule shortTermPricesTask: " + e.getMessage());
+            Nascraft.getInstance().getLogger().severe("Could not schedule marketTickTask: " + e.getMessage());
         }
     }
 
@@ -133,60 +101,14 @@ public class TasksManager {
             Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
                 try {
                     DatabaseManager.get().getDatabase().saveEverything();
-                    DatabaseManager.get().getDatabase().saveCPIValue(MarketManager.getInstance().getConsumerPriceIndex());
+                    PriceIndices.getInstance().saveDailyValue();
                     PortfoliosManager.getInstance().savePortfoliosWorthOfOnlinePlayers();
                 } catch (Exception e) {
                     Nascraft.getInstance().getLogger().severe("Error in saveDataTask: " + e.getMessage());
                 }
-            }, 60L * 5 * ticksPerSecond, 60L * 5 * ticksPerSecond);
+            }, (long) Config.getInstance().getSaveInterval() * ticksPerSecond, (long) Config.getInstance().getSaveInterval() * ticksPerSecond);
         } catch (Exception e) {
             Nascraft.getInstance().getLogger().severe("Could not schedule saveDataTask: " + e.getMessage());
         }
     }
-
-    private void saveInstants() {
-        try {
-            Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
-                try {
-                    for (Item item : MarketManager.getInstance().getAllParentItems()) {
-                        item.getItemStats().addInstant(new Instant(
-                                LocalDateTime.now(),
-                                item.getPrice().getValue(),
-                                item.getVolume()
-                        ));
-                        item.restartVolume();
-                    }
-                } catch (Exception e) {
-                    Nascraft.getInstance().getLogger().severe("Error in saveInstants: " + e.getMessage());
-                }
-            }, 2400, 60L * ticksPerSecond);
-        } catch (Exception e) {
-            Nascraft.getInstance().getLogger().severe("Could not schedule saveInstants: " + e.getMessage());
-        }
-    }
-
-    private void hourlyTask() {
-        try {
-            LocalTime timeNow = LocalTime.now();
-            LocalTime nextHour = timeNow.plusHours(1).withMinute(0).withSecond(0);
-            Duration timeRemaining = Duration.between(timeNow, nextHour);
-
-            Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
-                try {
-                    for (Item item : MarketManager.getInstance().getAllItems()) {
-                        item.getPrice().restartHourLimits();
-                    }
-
-                    MarketManager.getInstance().setOperationsLastHour(0);
-
-                    if (Config.getInstance().getAlertsMenuEnabled())
-                        DatabaseManager.get().getDatabase().purgeAlerts();
-                } catch (Exception e) {
-                    Nascraft.getInstance().getLogger().severe("Error in hourlyTask: " + e.getMessage());
-                }
-            }, timeRemaining.getSeconds()*ticksPerSecond, 60 * 60 * ticksPerSecond);
-        } catch (Exception e) {
-            Nascraft.getInstance().getLogger().severe("Could not schedule hourlyTask: " + e.getMessage());
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.api.events.Action;
+import me.bounser.nascraft.api.events.BulkTransactionCompletedEvent;
+import me.bounser.nascraft.api.events.SellItemEvent;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.TradeJournal;
+import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.discord.DiscordLog;
+import me.bounser.nascraft.formatter.RoundUtils;
+import me.bounser.nascraft.managers.MoneyManager;
+import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Sale of a whole group of stacks at once. Stacks are aggregated into one line per parent item, every line
+ * is priced before any stock moves, and the result is paid with one deposit per currency and logged in one batch.
+ * Removing the sold stacks from wherever they are is left to the caller.
+ */
+public class BulkSale {
+
+    private final List<ItemStack> stacks;
+    private final boolean[] sold;
+
+    private final Map<Item, Line> lines = new LinkedHashMap<>();
+
+    public BulkSale(List<ItemStack> stacks) { this(stacks, item -> true); }
+
+    public BulkSale(List<ItemStack> stacks, Predicate<Item> filter) {
+
+        this.stacks = stacks;
+        this.sold = new boolean[stacks.size()];
+
+        MarketManager market = MarketManager.getInstance();
+
+        for (int i = 0; i < stacks.size(); i++) {
+
+            ItemStack itemStack = stacks.get(i);
+
+            if (itemStack == null || itemStack.getType() == Material.AIR || itemStack.getAmount() <= 0) continue;
+
+            Item item = market.getItem(itemStack);
+
+            if (item == null || !filter.test(item)) continue;
+
+            Item parent = item.isParent() ? item : item.getParent();
+
+            lines.computeIfAbsent(parent, Line::new).add(item, itemStack.getAmount(), i);
+        }
+    }
+
+    public static BulkSale of(ItemStack[] contents) { return new BulkSale(Arrays.asList(contents)); }
+
+    public static BulkSale of(ItemStack[] contents, Predicate<Item> filter) { return new BulkSale(Arrays.asList(contents), filter); }
+
+    public boolean isEmpty() { return lines.isEmpty(); }
+
+    public Collection<Line> getLines() { return lines.values(); }
+
+    /**
+     * Prices every line at the current state of the market without selling anything.
+     * @return total worth per currency
+     */
+    public Map<Currency, Double> quote() {
+
+        Map<Currency, Double> totals = new LinkedHashMap<>();
+
+        price(lines.values());
+
+        for (Line line : lines.values())
+            totals.merge(line.parent.getCurrency(), line.worth, Double::sum);
+
+        return totals;
+    }
+
+    // Prices all lines with one batch quote against the current state of each price
+    private static void price(Collection<Line> lines) {
+
+        MarketManager market = MarketManager.getInstance();
+
+        int[] indices = new int[lines.size()];
+        float[] quantities = new float[lines.size()];
+        double[] costs = new double[lines.size()];
+
+        int i = 0;
+        for (Line line : lines) {
+            int index = market.getQuoteIndex(line.parent);
+            indices[i] = Math.max(index, 0);
+            quantities[i] = index == -1 ? 0 : line.quantity;
+            i++;
+        }
+
+        market.quote(indices, quantities, costs);
+
+        i = 0;
+        for (Line line : lines) {
+            if (quantities[i] == 0) {
+                Price price = line.parent.getPrice();
+                line.worth = price.getProjectedCost(line.quantity, price.getSellTaxMultiplier());
+            } else {
+                line.worth = costs[i];
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Sells every line that isn't blocked by the price limits or cancelled by a listener.
+     * @return worth paid per currency, empty if nothing was sold
+     */
+    public Map<Currency, Double> execute(UUID uuid) {
+
+        Map<Currency, Double> totals = new LinkedHashMap<>();
+
+        if (!MarketManager.getInstance().getActive()) return totals;
+
+        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
+        Player player = Bukkit.getPlayer(uuid);
+
+        List<Line> accepted = new ArrayList<>(lines.size());
+
+        for (Line line : lines.values()) {
+
+            Price price = line.parent.getPrice();
+
+            line.limitReached = !price.canStockChange(line.quantity, false);
+
+            if (line.limitReached && line.parent.isPriceRestricted()) continue;
+
+            SellItemEvent event = new SellItemEvent(player, line.parent, line.quantity);
+            Bukkit.getPluginManager().callEvent(event);
+
+            if (event.isCancelled()) continue;
+
+            accepted.add(line);
+        }
+
+        if (accepted.isEmpty()) return totals;
+
+        // Every accepted line is priced before the stock of any of them changes
+        price(accepted);
+
+        Map<Currency, Double> taxes = new HashMap<>();
+        Map<Item, Integer> amounts = new LinkedHashMap<>();
+        List<Trade> trades = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Line line : accepted) {
+
+            if (!line.limitReached) line.parent.registerBulkSale(line.getAmount(), line.quantity);
+
+            line.sold = true;
+            for (int slot : line.slots) sold[slot] = true;
+
+            Currency currency = line.parent.getCurrency();
+            totals.merge(currency, line.worth, Double::sum);
+
+            float tax = line.parent.getPrice().getSellTaxMultiplier();
+            if (tax > 0) taxes.merge(currency, line.worth / tax - line.worth, Double::sum);
+
+            for (Map.Entry<Item, Integer> entry : line.amounts.entrySet()) {
+                trades.add(new Trade(entry.getKey(), now, RoundUtils.round(line.getWorth(entry.getKey())), entry.getValue(), false, false, uuid));
+                amounts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+                MarketManager.getInstance().addOperation();
+            }
+        }
+
+        for (Map.Entry<Currency, Double> entry : totals.entrySet()) {
+            MoneyManager.getInstance().bulkDeposit(offlinePlayer, entry.getKey(), entry.getValue(), taxes.getOrDefault(entry.getKey(), 0d));
+            entry.setValue((double) RoundUtils.round(entry.getValue()));
+        }
+
+        TradeJournal.getInstance().log(trades);
+
+        if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
+            for (Trade trade : trades) DiscordLog.getInstance().sendTradeLog(trade);
+
+        Bukkit.getPluginManager().callEvent(new BulkTransactionCompletedEvent(player, amounts, totals, Action.SELL));
+
+        return totals;
+    }
+
+    public boolean isSold(int index) { return sold[index]; }
+
+    public List<ItemStack> getUnsoldStacks() {
+
+        List<ItemStack> unsold = new ArrayList<>();
+
+        for (int i = 0; i < stacks.size(); i++)
+            if (!sold[i] && stacks.get(i) != null) unsold.add(stacks.get(i));
+
+        return unsold;
+    }
+
+    public int getSoldAmount() {
+
+        int amount = 0;
+
+        for (Line line : lines.values())
+            if (line.sold) amount += line.getAmount();
+
+        return amount;
+    }
+
+    /**
+     * Whether a line was left unsold because its price reached the limit, as opposed to being cancelled by a listener.
+     */
+    public boolean isLimitReached() {
+
+        for (Line line : lines.values())
+            if (line.limitReached && !line.sold) return true;
+
+        return false;
+    }
+
+    public static class Line {
+
+        private final Item parent;
+        private final Map<Item, Integer> amounts = new LinkedHashMap<>();
+        private final List<Integer> slots = new ArrayList<>();
+
+        // In units of the parent item
+        private float quantity = 0;
+
+        private double worth = 0;
+        private boolean limitReached = false;
+        private boolean sold = false;
+
+        private Line(Item parent) { this.parent = parent; }
+
+        private void add(Item item, int amount, int slot) {
+            amounts.merge(item, amount, Integer::sum);
+            slots.add(slot);
+            quantity += amount * item.getMultiplier();
+        }
+
+        public Item getParent() { return parent; }
+
+        public Map<Item, Integer> getAmounts() { return Collections.unmodifiableMap(amounts); }
+
+        public int getAmount() {
+            int amount = 0;
+            for (int value : amounts.values()) amount += value;
+            return amount;
+        }
+
+        public float getQuantity() { return quantity; }
+
+        public double getWorth() { return worth; }
+
+        // Share of the worth of the line that corresponds to the given item, by quantity
+        public double getWorth(Item item) {
+            Integer amount = amounts.get(item);
+            if (amount == null || quantity == 0) return 0;
+            return worth * amount * item.getMultiplier() / quantity;
+        }
+
+        public boolean isSold() { return sold; }
+    }
+
+}
@@ -0,0 +1,79 @@
+package me.bounser.nascraft.market;
+
+import de.tr7zw.changeme.nbtapi.NBT;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Copy of an item stack with the ignored NBT keys removed, together with a hash of its type, durability and meta.
+ * Computed once per stack so that comparisons don't have to clone or modify NBT again.
+ */
+public final class ItemFingerprint {
+
+    private final ItemStack normalized;
+    private final Material type;
+    private final int hash;
+    private final List<String> ignoredKeys;
+
+    private ItemFingerprint(ItemStack normalized, List<String> ignoredKeys) {
+        this.normalized = normalized;
+        this.type = normalized.getType();
+        this.hash = hash(normalized);
+        this.ignoredKeys = ignoredKeys;
+    }
+
+    public static ItemFingerprint of(ItemStack itemStack, List<String> ignoredKeys) {
+        return new ItemFingerprint(normalize(itemStack, ignoredKeys), ignoredKeys);
+    }
+
+    private static ItemStack normalize(ItemStack itemStack, List<String> ignoredKeys) {
+
+        ItemStack normalized = itemStack.clone();
+        normalized.setAmount(1);
+
+        if (ignoredKeys.isEmpty() || !normalized.hasItemMeta()) return normalized;
+
+        NBT.modify(normalized, nbt -> {
+            for (String ignoredKey : ignoredKeys) nbt.removeKey(ignoredKey);
+        });
+
+        return normalized;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int hash(ItemStack itemStack) {
+        int hash = 31 * itemStack.getType().hashCode() + itemStack.getDurability();
+        return itemStack.hasItemMeta() ? 31 * hash + itemStack.getItemMeta().hashCode() : hash;
+    }
+
+    public Material getType() { return type; }
+
+    public int getHash() { return hash; }
+
+    public boolean hasMeta() { return normalized.hasItemMeta(); }
+
+    public boolean matches(ItemFingerprint other) {
+        return other != null && type == other.type && hash == other.hash && normalized.isSimilar(other.normalized);
+    }
+
+    // Full comparison without the hash shortcut
+    boolean isSimilar(ItemFingerprint other) {
+        return other != null && type == other.type && normalized.isSimilar(other.normalized);
+    }
+
+    /**
+     * Compares against a stack that hasn't been normalized. Only stacks of the same type that carry
+     * meta, with ignored keys configured, are copied to strip those keys.
+     */
+    public boolean matches(ItemStack itemStack) {
+
+        if (itemStack == null || itemStack.getType() != type) return false;
+
+        if (ignoredKeys.isEmpty() || !itemStack.hasItemMeta()) return normalized.isSimilar(itemStack);
+
+        return matches(of(itemStack, ignoredKeys));
+    }
+
+}
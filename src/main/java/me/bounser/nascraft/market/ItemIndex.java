@@ -0,0 +1,127 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Immutable lookup table from item stacks to market items, keyed by material and a fingerprint
+ * of the meta with the ignored NBT keys removed. Rebuilt whenever the list of items changes.
+ */
+public class ItemIndex {
+
+    private final Map<Material, Bucket> buckets = new EnumMap<>(Material.class);
+    private final Map<Item, ItemFingerprint> fingerprints = new IdentityHashMap<>();
+    private final Map<Item, Integer> positions = new IdentityHashMap<>();
+    private final Price[] prices;
+    private final List<String> ignoredKeys;
+
+    public ItemIndex(List<Item> items, List<String> ignoredKeys) {
+
+        this.ignoredKeys = Collections.unmodifiableList(new ArrayList<>(ignoredKeys));
+        this.prices = new Price[items.size()];
+
+        for (Item item : items) {
+            positions.put(item, positions.size());
+            prices[positions.size() - 1] = item.getPrice();
+
+            ItemFingerprint fingerprint = ItemFingerprint.of(item.getItemStack(), this.ignoredKeys);
+            Entry entry = new Entry(fingerprint, item);
+
+            fingerprints.put(item, fingerprint);
+
+            Bucket bucket = buckets.computeIfAbsent(fingerprint.getType(), material -> new Bucket());
+
+            if (fingerprint.hasMeta()) {
+                bucket.withMeta.add(entry);
+                bucket.byHash.computeIfAbsent(fingerprint.getHash(), hash -> new ArrayList<>(1)).add(entry);
+            } else {
+                bucket.plain.add(entry);
+            }
+        }
+    }
+
+    /**
+     * First market item, in market order, similar to the given stack once the ignored keys are removed from both.
+     */
+    public Item get(ItemStack itemStack) { return get(itemStack, false); }
+
+    public Item getParent(ItemStack itemStack) { return get(itemStack, true); }
+
+    private Item get(ItemStack itemStack, boolean parentsOnly) {
+
+        if (itemStack == null) return null;
+
+        Bucket bucket = buckets.get(itemStack.getType());
+        if (bucket == null) return null;
+
+        if (!itemStack.hasItemMeta()) {
+            for (Entry entry : bucket.plain)
+                if ((!parentsOnly || entry.item.isParent()) && entry.fingerprint.matches(itemStack)) return entry.item;
+            return null;
+        }
+
+        ItemFingerprint fingerprint = ItemFingerprint.of(itemStack, ignoredKeys);
+
+        Item item = find(fingerprint.hasMeta() ? bucket.byHash.get(fingerprint.getHash()) : bucket.plain, fingerprint, parentsOnly);
+        if (item != null || !fingerprint.hasMeta()) return item;
+
+        // Metas whose hash doesn't follow their equality (unusual NBT layouts) are only found by comparing one by one
+        for (Entry entry : bucket.withMeta)
+            if ((!parentsOnly || entry.item.isParent()) && entry.fingerprint.isSimilar(fingerprint)) return entry.item;
+
+        return null;
+    }
+
+    private Item find(List<Entry> entries, ItemFingerprint fingerprint, boolean parentsOnly) {
+
+        if (entries == null) return null;
+
+        for (Entry entry : entries)
+            if ((!parentsOnly || entry.item.isParent()) && entry.fingerprint.matches(fingerprint)) return entry.item;
+
+        return null;
+    }
+
+    /**
+     * Cached fingerprint of a market item, computed on the spot for items added after the index was built.
+     */
+    public ItemFingerprint getFingerprint(Item item) {
+        ItemFingerprint fingerprint = fingerprints.get(item);
+        return fingerprint != null ? fingerprint : ItemFingerprint.of(item.getItemStack(), ignoredKeys);
+    }
+
+    public List<String> getIgnoredKeys() { return ignoredKeys; }
+
+    /**
+     * Position of the item in the price table, or -1 if it isn't indexed.
+     */
+    public int getPosition(Item item) {
+        Integer position = positions.get(item);
+        return position == null ? -1 : position;
+    }
+
+    public Price[] getPrices() { return prices; }
+
+    private static class Bucket {
+
+        private final List<Entry> plain = new ArrayList<>(1);
+        private final List<Entry> withMeta = new ArrayList<>(1);
+        private final Map<Integer, List<Entry>> byHash = new HashMap<>();
+    }
+
+    private static class Entry {
+
+        private final ItemFingerprint fingerprint;
+        private final Item item;
+
+        private Entry(ItemFingerprint fingerprint, Item item) {
+            this.fingerprint = fingerprint;
+            this.item = item;
+        }
+    }
+
+}
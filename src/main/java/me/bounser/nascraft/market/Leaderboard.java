@@ -0,0 +1,73 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Items ordered by a score, highest first. Built once from a snapshot of the scores and never changed afterwards,
+ * so it can be read from any thread without locking. Reading the first or last k items is O(k) and the rank of
+ * an item is O(1). Items with the same score keep the order in which they were given.
+ */
+public class Leaderboard {
+
+    private final Item[] ranked;
+    private final Map<Item, Integer> ranks;
+
+    public Leaderboard(List<Item> items, ToDoubleFunction<Item> score) {
+
+        double[] scores = new double[items.size()];
+        Integer[] order = new Integer[items.size()];
+
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = score.applyAsDouble(items.get(i));
+            order[i] = i;
+        }
+
+        // Stable, so ties stay in the given order
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        ranked = new Item[order.length];
+        ranks = new IdentityHashMap<>(order.length);
+
+        for (int i = 0; i < order.length; i++) {
+            ranked[i] = items.get(order[i]);
+            ranks.putIfAbsent(ranked[i], i);
+        }
+    }
+
+    /**
+     * @return position of the item starting at 0 for the highest score, or -1 if it isn't on the board.
+     */
+    public int rank(Item item) { return ranks.getOrDefault(item, -1); }
+
+    /**
+     * @return up to k items with the highest scores, highest first.
+     */
+    public List<Item> top(int k) {
+
+        List<Item> items = new ArrayList<>(Math.max(0, Math.min(k, ranked.length)));
+
+        for (int i = 0; i < ranked.length && items.size() < k; i++) items.add(ranked[i]);
+
+        return items;
+    }
+
+    /**
+     * @return up to k items with the lowest scores, lowest first.
+     */
+    public List<Item> bottom(int k) {
+
+        List<Item> items = new ArrayList<>(Math.max(0, Math.min(k, ranked.length)));
+
+        for (int i = ranked.length - 1; i >= 0 && items.size() < k; i--) items.add(ranked[i]);
+
+        return items;
+    }
+
+}
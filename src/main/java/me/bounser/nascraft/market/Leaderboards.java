@@ -0,0 +1,61 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+
+import java.util.List;
+
+/**
+ * Rankings of the market, built once per market tick instead of being searched for on every read. Trades and
+ * price changes don't touch them, and a new set of boards replaces the previous one as a whole, so readers
+ * never see a board half built.
+ */
+public class Leaderboards {
+
+    private volatile Boards boards = new Boards(List.of(), List.of());
+
+    private static Leaderboards instance;
+
+    public static Leaderboards getInstance() { return instance == null ? instance = new Leaderboards() : instance; }
+
+    public void rebuild(List<Item> parents, List<Item> items) { boards = new Boards(parents, items); }
+
+    private static double getChange(Price price) {
+        double hourAgo = price.getValueAnHourAgo();
+        return hourAgo == 0 ? 0 : -100 + 100 * price.getValue() / hourAgo;
+    }
+
+    public List<Item> getTopGainers(int quantity) { return boards.change.top(quantity); }
+
+    public List<Item> getTopDippers(int quantity) { return boards.change.bottom(quantity); }
+
+    public List<Item> getMostMoved(int quantity) { return boards.moved.top(quantity); }
+
+    public List<Item> getMostTraded(int quantity) { return boards.traded.top(quantity); }
+
+    /**
+     * @return position of the item by volume, starting at 1.
+     */
+    public int getPositionByVolume(Item item) { return boards.volume.rank(item) + 1; }
+
+    private static class Boards {
+
+        // Change of the value during the last hour, parent items
+        private final Leaderboard change;
+        private final Leaderboard moved;
+
+        // Operations of parent items
+        private final Leaderboard traded;
+
+        // Volume of every item
+        private final Leaderboard volume;
+
+        private Boards(List<Item> parents, List<Item> items) {
+            change = new Leaderboard(parents, item -> getChange(item.getPrice()));
+            moved = new Leaderboard(parents, item -> Math.abs(getChange(item.getPrice())));
+            traded = new Leaderboard(parents, Item::getOperations);
+            volume = new Leaderboard(items, Item::getVolume);
+        }
+    }
+
+}
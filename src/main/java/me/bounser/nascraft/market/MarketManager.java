@@ -1,6 +1,5 @@
 package me.bounser.nascraft.market;
 
-import de.tr7zw.changeme.nbtapi.NBT;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.DatabaseManager;
@@ -10,13 +9,18 @@ import me.bounser.nascraft.managers.ImagesManager;
 import me.bounser.nascraft.managers.GraphManager;
 // Don't remove this import, we'll handle the error differently
 import me.bounser.nascraft.managers.TasksManager;
-import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.market.unit.stats.PriceHistory;
+import me.bounser.nascraft.market.unit.stats.PriceSeries;
+import me.bounser.nascraft.market.unit.stats.Resolution;
 import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
+import me.bounser.nascraft.web.dto.CandlesDTO;
 import me.bounser.nascraft.web.dto.CategoryDTO;
 import me.bounser.nascraft.web.dto.ItemDTO;
 import me.bounser.nascraft.web.dto.PortfolioDTO;
@@ -43,18 +47,27 @@ public class MarketManager {
 
     private float lastChange;
 
+    // Computed by the market tick every minute, until the first one it is computed on demand
+    private volatile boolean change1hReady = false;
+    private volatile float change1h;
+
     private int operationsLastHour = 0;
 
     private List<String> ignoredKeys = new ArrayList<>();
 
+    private volatile ItemIndex itemIndex = null;
+
+    // Replaced as a whole whenever items change, so it can be read from any thread
+    private volatile MarketView view = new MarketView(0, Collections.emptyList());
+
     private static MarketManager instance = null;
 
     public static MarketManager getInstance() { return instance == null ? new MarketManager() : instance; }
 
     private MarketManager() {
         instance = this;
-        setupItems();
         ignoredKeys = Config.getInstance().getIgnoredKeys();
+        setupItems();
 
         active = !Config.getInstance().isMarketClosed();
     }
@@ -123,6 +136,12 @@ public class MarketManager {
         for (Item item : items)
             if (item.getCategory() == null && item.isParent()) Nascraft.getInstance().getLogger().warning("Item: " + item.getIdentifier() + " is not assigned to any category.");
 
+        rebuildItemIndex();
+
+        loadPriceHistories();
+
+        for (Item item : getAllParentItems()) item.getItemStats().resumeRollup();
+
         marketChanges1h = new ArrayList<>(Collections.nCopies(60, 0f));
         marketChanges24h = new ArrayList<>(Collections.nCopies(24, 0f));
 
@@ -146,16 +165,85 @@ public class MarketManager {
 
 
 
+    private void loadPriceHistories() {
+
+        List<Item> parents = getAllParentItems();
+        if (parents.isEmpty()) return;
+
+        long budget = (long) Config.getInstance().getHistoryCacheMemoryBudget() * 1024 * 1024;
+        int historyDays = Config.getInstance().getHistoryCacheDays();
+
+        if (budget <= 0) {
+            Nascraft.getInstance().getLogger().info("Price history cache disabled. Charts will be read from the database.");
+            return;
+        }
+
+        if (PriceHistory.getBytes(historyDays) * parents.size() > budget) {
+            long perItem = budget / parents.size();
+            historyDays = (int) (perItem / PriceSeries.BYTES_PER_SAMPLE) - PriceHistory.DAY_SAMPLES - PriceHistory.MONTH_SAMPLES;
+
+            if (historyDays < 366) {
+                Nascraft.getInstance().getLogger().warning("The price history cache needs at least " + (PriceHistory.getBytes(366) * parents.size() / 1024) +
+                        " KB for " + parents.size() + " items. Raise database.history-cache.memory-budget. Charts will be read from the database.");
+                return;
+            }
+        }
+
+        for (Item item : parents) {
+            PriceHistory history = new PriceHistory(item, historyDays);
+            history.load(DatabaseManager.get().getDatabase());
+            item.getItemStats().setHistory(history);
+        }
+
+        long perItem = PriceHistory.getBytes(historyDays);
+
+        Nascraft.getInstance().getLogger().info("Price history cache: " + parents.size() + " items, " + perItem + " bytes per item (" +
+                historyDays + " days of history), " + (perItem * parents.size() / 1024) + " KB in total.");
+    }
+
     public void reload() {
         items.clear();
         categories.clear();
 
+        ignoredKeys = Config.getInstance().getIgnoredKeys();
         setupItems();
     }
 
+    public void rebuildItemIndex() {
+        itemIndex = new ItemIndex(items, ignoredKeys);
+        rebuildView();
+        Leaderboards.getInstance().rebuild(getAllParentItems(), getAllItems());
+    }
+
+    /**
+     * Has to be called after changing the name, category or currency of an item.
+     */
+    public void rebuildView() {
+        view = new MarketView(view.getVersion() + 1, items);
+        PriceIndices.getInstance().rebuild(view);
+    }
+
+    public MarketView getView() { return view; }
+
     public Item getItem(ItemStack itemStack) {
-        for (Item item : items) if (itemStack.isSimilar(item.getItemStack())) return item;
-        return null;
+        ItemIndex index = itemIndex;
+        return index == null ? null : index.get(itemStack);
+    }
+
+    /**
+     * Position of the item in the table used by {@link #quote}, or -1 if the item isn't in the market.
+     */
+    public int getQuoteIndex(Item item) {
+        ItemIndex index = itemIndex;
+        return index == null ? -1 : index.getPosition(item);
+    }
+
+    /**
+     * Projected cost of several lines in one call, see {@link Price#quote}. Quantities are in units of the parent item.
+     */
+    public double quote(int[] indices, float[] quantities, double[] costs) {
+        ItemIndex index = itemIndex;
+        return Price.quote(index == null ? new Price[0] : index.getPrices(), indices, quantities, costs);
     }
 
     public Item getItem(String identifier) {
@@ -165,16 +253,9 @@ public class MarketManager {
 
     public List<Category> getCategories() { return categories; }
 
-    public List<Item> getAllItems() { return items; }
+    public List<Item> getAllItems() { return view.getItems(); }
 
-    public List<Item> getAllParentItemsInAlphabeticalOrder() {
-
-        List<Item> sorted = new ArrayList<>(getAllParentItems());
-
-        sorted.sort(Comparator.comparing(Item::getName));
-
-        return sorted;
-    }
+    public List<Item> getAllParentItemsInAlphabeticalOrder() { return view.getParentsInAlphabeticalOrder(); }
 
     public List<String> getAllItemsAndChildsIdentifiers() {
 
@@ -187,169 +268,56 @@ public class MarketManager {
         return identifiers;
     }
 
-    public List<Item> getAllParentItems() {
+    public List<Item> getAllParentItems() { return view.getParents(); }
 
-        List<Item> parents = new ArrayList<>();
+    public List<Item> getAllChildItems() { return view.getChildren(); }
 
-        for (Item item : items) {
-            if (item.isParent()) parents.add(item);
-        }
+    public List<Item> getParentItemsOfCategory(Category category) { return view.getParentsOfCategory(category); }
 
-        return parents;
-    }
+    public List<Item> getParentItemsOfCurrency(Currency currency) { return view.getParentsOfCurrency(currency); }
 
     public void stop() { active = false; }
     public void resume() { active = true; }
 
     public boolean getActive() { return active; }
 
-    public boolean isAValidItem(ItemStack itemStack) {
-
-        for (Item item : items)
-            if (isSimilarEnough(item.getItemStack(), itemStack)) return true;
-
-        return false;
-    }
+    public boolean isAValidItem(ItemStack itemStack) { return getItem(itemStack) != null; }
 
     public boolean isAValidParentItem(ItemStack itemStack) {
-
-        for (Item item : getAllParentItems())
-            if (isSimilarEnough(item.getItemStack(), itemStack)) return true;
-
-        return false;
-    }
-
-    public boolean isSimilarEnough(ItemStack itemStack1, ItemStack itemStack2) {
-
-        if (itemStack1 == null || itemStack2 == null) return false;
-
-        if (!itemStack1.getType().equals(itemStack2.getType())) return false;
-
-        ItemStack itemStackWithoutFlags1 = itemStack1.clone();
-        ItemStack itemStackWithoutFlags2 = itemStack2.clone();
-
-        for (String ignoredKey : ignoredKeys) {
-            NBT.modify(itemStackWithoutFlags1, nbt -> {
-                nbt.removeKey(ignoredKey);
-            });
-            NBT.modify(itemStackWithoutFlags1, nbt -> {
-                nbt.removeKey(ignoredKey);
-            });
-        }
-
-        return itemStackWithoutFlags1.isSimilar(itemStackWithoutFlags2);
-    }
-
-    public List<Item> getTopGainers(int quantity) {
-
-        List<Item> items = new ArrayList<>(MarketManager.getInstance().getAllParentItems());
-
-        List<Item> topGainers = new ArrayList<>();
-
-        for (int i = 1; i <= quantity ; i++) {
-
-            Item imax = items.get(0);
-            for (Item item : items) {
-
-                float variation = item.getPrice().getValueChangeLastHour();
-
-                if (variation != 0) {
-                    if (variation > imax.getPrice().getValueChangeLastHour()) {
-                        imax = item;
-                    }
-                }
-            }
-            items.remove(imax);
-
-            topGainers.add(imax);
-        }
-        return topGainers;
+        ItemIndex index = itemIndex;
+        return index != null && index.getParent(itemStack) != null;
     }
 
-    public List<Item> getTopDippers(int quantity) {
-
-        List<Item> items = new ArrayList<>(MarketManager.getInstance().getAllParentItems());
-
-        List<Item> topDippers = new ArrayList<>();
+    public ItemFingerprint getFingerprint(ItemStack itemStack) { return ItemFingerprint.of(itemStack, ignoredKeys); }
 
-        for (int i = 1; i <= quantity ; i++) {
+    public boolean isSimilarEnough(Item item, ItemStack itemStack) {
 
-            Item imax = items.get(0);
-            for (Item item : items) {
+        if (item == null || itemStack == null) return false;
 
-                float variation = item.getPrice().getValueChangeLastHour();
+        ItemIndex index = itemIndex;
+        ItemFingerprint fingerprint = index == null ? getFingerprint(item.getItemStack()) : index.getFingerprint(item);
 
-                if (variation != 0) {
-                    if (variation < imax.getPrice().getValueChangeLastHour()) {
-                        imax = item;
-                    }
-                }
-            }
-            items.remove(imax);
-
-            topDippers.add(imax);
-        }
-        return topDippers;
+        return fingerprint.matches(itemStack);
     }
 
-    public List<Item> getMostMoved(int quantity) {
-
-        List<Item> items = new ArrayList<>(MarketManager.getInstance().getAllParentItems());
-
-        List<Item> mostMoved = new ArrayList<>();
-
-        for (int i = 1; i <= quantity ; i++) {
-
-            Item imax = items.get(0);
-            for (Item item : items) {
+    public boolean isSimilarEnough(ItemStack itemStack1, ItemStack itemStack2) {
 
-                float variation = item.getPrice().getValueChangeLastHour();
+        if (itemStack1 == null || itemStack2 == null) return false;
 
-                if (variation != 0) {
-                    if (Math.abs(variation) > Math.abs(imax.getPrice().getValueChangeLastHour())) {
-                        imax = item;
-                    }
-                }
-            }
-            items.remove(imax);
+        if (!itemStack1.getType().equals(itemStack2.getType())) return false;
 
-            mostMoved.add(imax);
-        }
-        return mostMoved;
+        return getFingerprint(itemStack1).matches(itemStack2);
     }
 
-    public List<Item> getMostTraded(int quantity) {
-
-        List<Item> items = new ArrayList<>(MarketManager.getInstance().getAllParentItems());
-
-        List<Item> mostTraded = new ArrayList<>();
-
-        for (int i = 1; i <= quantity ; i++) {
-
-            Item imax = items.get(0);
-            for (Item item : items) {
-
-                if (item.getOperations() >= 1) {
-                    if (item.getOperations() > imax.getOperations()) {
-                        imax = item;
-                    }
-                }
-            }
-            items.remove(imax);
-
-            mostTraded.add(imax);
-        }
-        return mostTraded;
-    }
+    public List<Item> getTopGainers(int quantity) { return Leaderboards.getInstance().getTopGainers(quantity); }
 
-    public int getPositionByVolume(Item item) {
+    public List<Item> getTopDippers(int quantity) { return Leaderboards.getInstance().getTopDippers(quantity); }
 
-        List<Item> items = new ArrayList<>(getAllItems());
+    public List<Item> getMostMoved(int quantity) { return Leaderboards.getInstance().getMostMoved(quantity); }
 
-        items.sort(Comparator.comparingDouble(Item::getVolume));
+    public List<Item> getMostTraded(int quantity) { return Leaderboards.getInstance().getMostTraded(quantity); }
 
-        return items.size()-getIndexOf(item, items);
-    }
+    public int getPositionByVolume(Item item) { return Leaderboards.getInstance().getPositionByVolume(item); }
 
     public int getIndexOf(Item item, List<Item> list) {
         for (int i = 0; i < list.size(); i++) {
@@ -381,8 +349,15 @@ public class MarketManager {
         return benchmark;
     }
 
+    public void setChange1h(float change1h) {
+        this.change1h = change1h;
+        change1hReady = true;
+    }
+
     public float getChange1h(){
 
+        if (change1hReady) return change1h;
+
         float change = 0;
 
         for (Item item : getAllParentItems())
@@ -405,15 +380,24 @@ public class MarketManager {
 
     public void setOperationsLastHour(int operations) { operationsLastHour = operations; }
 
-    public void removeItem(Item item) { items.remove(item); }
+    public void removeItem(Item item) {
+        items.remove(item);
+        rebuildItemIndex();
+    }
 
-    public void addItem(Item item) { items.add(item); }
+    public void addItem(Item item) {
+        items.add(item);
+        rebuildItemIndex();
+    }
 
     public void removeCategory(Category category) { categories.remove(category); }
 
     public void addCategory(Category category) { categories.remove(category); }
 
-    public void setCategories(List<Category> categories) { this.categories = categories; }
+    public void setCategories(List<Category> categories) {
+        this.categories = categories;
+        rebuildView();
+    }
 
     public Category getCategoryFromIdentifier(String identifier) {
 
@@ -423,30 +407,13 @@ public class MarketManager {
         return null;
     }
 
-    public float getConsumerPriceIndex() {
-
-        float index = 0;
-        int numOfItems = 0;
-
-        for (Item item : getAllParentItems()) {
-            if (!item.getCurrency().equals(CurrenciesManager.getInstance().getDefaultCurrency())) continue;
-
-            if (Config.getInstance().includeInCPI(item)) {
-                index += (float) (item.getPrice().getValue()/item.getPrice().getInitialValue());
-                numOfItems++;
-            }
-        }
-
-        return (index/numOfItems)*100;
-    }
+    public float getConsumerPriceIndex() { return PriceIndices.getInstance().getConsumerPriceIndex(); }
 
     public List<ItemDTO> getAllItemData() {
 
         List<ItemDTO> itemsDTO = new ArrayList<>();
 
-        for (Item item : items) {
-
-            if (!item.isParent()) continue;
+        for (Item item : getAllParentItems()) {
 
             itemsDTO.add(
                     new ItemDTO(
@@ -466,7 +433,11 @@ public class MarketManager {
 
     public ItemDTO getPopularItem() {
 
-        Item item = getMostTraded(1).get(0);
+        List<Item> mostTraded = getMostTraded(1);
+
+        if (mostTraded.isEmpty()) return null;
+
+        Item item = mostTraded.get(0);
 
         return new ItemDTO(
                 item.getIdentifier(),
@@ -482,7 +453,7 @@ public class MarketManager {
 
     public List<TimeSeriesDTO> getCPITimeSeries() {
 
-        List<CPIInstant> instants = DatabaseManager.get().getDatabase().getCPIHistory();
+        List<CPIInstant> instants = PriceIndices.getInstance().getHistory();
         List<TimeSeriesDTO> timeSeries = new ArrayList<>();
 
         for (CPIInstant instant : instants) {
@@ -506,7 +477,7 @@ public class MarketManager {
         Item item = getItem(identifier);
         if (item == null) return null;
 
-        List<Instant> instants = DatabaseManager.get().getDatabase().getAllPrices(item);
+        List<Instant> instants = item.getItemStats().getAllPrices();
 
         for (Instant instant : instants) {
             long timestamp = instant.getLocalDateTime().toEpochSecond(ZoneOffset.UTC);
@@ -518,6 +489,14 @@ public class MarketManager {
         return timeSeries;
     }
 
+    public CandlesDTO getItemCandles(String identifier, Resolution resolution) {
+
+        Item item = getItem(identifier);
+        if (item == null) return null;
+
+        return new CandlesDTO(resolution.getTimeframe(), item.getItemStats().getCandles(resolution));
+    }
+
     public List<CategoryDTO> getCategoriesDTO() {
 
         List<CategoryDTO> categoriesDTO = new ArrayList<>();
@@ -0,0 +1,84 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.resources.Category;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the items of the market and the usual ways of listing them, built once each time the
+ * items, their categories or their currencies change. Lists keep the market order unless stated otherwise.
+ */
+public class MarketView {
+
+    private final long version;
+
+    private final List<Item> items;
+    private final List<Item> parents;
+    private final List<Item> children;
+    private final List<Item> alphabetical;
+
+    // Parent items only
+    private final Map<Category, List<Item>> byCategory;
+    private final Map<Currency, List<Item>> byCurrency;
+
+    public MarketView(long version, List<Item> items) {
+
+        this.version = version;
+        this.items = List.copyOf(items);
+
+        List<Item> parents = new ArrayList<>();
+        List<Item> children = new ArrayList<>();
+
+        Map<Category, List<Item>> byCategory = new HashMap<>();
+        Map<Currency, List<Item>> byCurrency = new HashMap<>();
+
+        for (Item item : this.items) {
+
+            if (!item.isParent()) {
+                children.add(item);
+                continue;
+            }
+
+            parents.add(item);
+
+            if (item.getCategory() != null)
+                byCategory.computeIfAbsent(item.getCategory(), category -> new ArrayList<>()).add(item);
+
+            byCurrency.computeIfAbsent(item.getCurrency(), currency -> new ArrayList<>()).add(item);
+        }
+
+        this.parents = List.copyOf(parents);
+        this.children = List.copyOf(children);
+
+        parents.sort(Comparator.comparing(Item::getName));
+        this.alphabetical = List.copyOf(parents);
+
+        byCategory.replaceAll((category, list) -> List.copyOf(list));
+        byCurrency.replaceAll((currency, list) -> List.copyOf(list));
+
+        this.byCategory = Collections.unmodifiableMap(byCategory);
+        this.byCurrency = Collections.unmodifiableMap(byCurrency);
+    }
+
+    /**
+     * @return number increased every time the view is rebuilt, to know whether anything derived from it is outdated.
+     */
+    public long getVersion() { return version; }
+
+    public List<Item> getItems() { return items; }
+
+    public List<Item> getParents() { return parents; }
+
+    public List<Item> getChildren() { return children; }
+
+    public List<Item> getParentsInAlphabeticalOrder() { return alphabetical; }
+
+    public List<Item> getParentsOfCategory(Category category) { return byCategory.getOrDefault(category, List.of()); }
+
+    public List<Item> getParentsOfCurrency(Currency currency) { return byCurrency.getOrDefault(currency, List.of()); }
+
+    public Set<Currency> getCurrencies() { return byCurrency.keySet(); }
+
+}
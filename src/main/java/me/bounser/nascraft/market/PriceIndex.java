@@ -0,0 +1,52 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Weighted average of the value of a set of items relative to their initial value, times 100. The sums are
+ * computed again from scratch once per market tick, so changing a price never waits on the index and no error
+ * builds up over time. Reading the index is O(1).
+ */
+public class PriceIndex {
+
+    // Only changed while the index is built, before it is published
+    private final List<Item> members = new ArrayList<>();
+
+    private volatile double value = 100;
+
+    void add(Item item) { members.add(item); }
+
+    void update(ToDoubleFunction<Item> ratios, ToDoubleFunction<Item> weights) {
+
+        if (members.isEmpty()) {
+            value = 100;
+            return;
+        }
+
+        double weightedSum = 0;
+        double totalWeight = 0;
+
+        // Used while no item has any weight
+        double sum = 0;
+
+        for (Item item : members) {
+            double ratio = ratios.applyAsDouble(item);
+            double weight = weights.applyAsDouble(item);
+
+            weightedSum += ratio * weight;
+            totalWeight += weight;
+            sum += ratio;
+        }
+
+        value = totalWeight > 1e-9 ? weightedSum / totalWeight * 100 : sum / members.size() * 100;
+    }
+
+    public double getValue() { return value; }
+
+    public int size() { return members.size(); }
+
+}
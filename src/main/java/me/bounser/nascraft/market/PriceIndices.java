@@ -0,0 +1,166 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.chart.cpi.CPIInstant;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.resources.Category;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consumer price indices of every currency and category, updated once per market tick instead of being computed
+ * on every read. The CPI is the index of the default currency. Its daily values are kept in a ring buffer so
+ * charts and placeholders don't have to read them from the database.
+ */
+public class PriceIndices {
+
+    public enum Weighting { EQUAL, VOLUME }
+
+    // Smoothing of the volume per minute used as weight, roughly the last hour
+    private static final double VOLUME_SMOOTHING = 1.0 / 60;
+
+    private final Weighting weighting;
+
+    private volatile Map<Currency, PriceIndex> byCurrency = Collections.emptyMap();
+    private volatile Map<Category, PriceIndex> byCategory = Collections.emptyMap();
+
+    private final Map<Item, Double> volumes = new ConcurrentHashMap<>();
+
+    private final CPIInstant[] history;
+    private int head = 0;
+    private int size = 0;
+
+    private static PriceIndices instance;
+
+    public static PriceIndices getInstance() { return instance == null ? instance = new PriceIndices() : instance; }
+
+    private PriceIndices() {
+        weighting = Config.getInstance().getCPIWeighting();
+        history = new CPIInstant[Math.max(7, Config.getInstance().getCPIHistoryDays())];
+
+        for (CPIInstant instant : DatabaseManager.get().getDatabase().getCPIHistory()) addToHistory(instant);
+    }
+
+    /**
+     * Builds the indices again from the items of the view, which is needed whenever items, their categories,
+     * currencies or initial values change.
+     */
+    public void rebuild(MarketView view) {
+
+        Map<Currency, PriceIndex> byCurrency = new HashMap<>();
+        Map<Category, PriceIndex> byCategory = new HashMap<>();
+
+        for (Item item : view.getParents()) {
+
+            if (!Config.getInstance().includeInCPI(item)) continue;
+
+            byCurrency.computeIfAbsent(item.getCurrency(), currency -> new PriceIndex()).add(item);
+
+            if (item.getCategory() != null)
+                byCategory.computeIfAbsent(item.getCategory(), category -> new PriceIndex()).add(item);
+        }
+
+        update(byCurrency.values());
+        update(byCategory.values());
+
+        this.byCurrency = byCurrency;
+        this.byCategory = byCategory;
+    }
+
+    /**
+     * Computes every index again with the current prices, called by the market tick once every item is updated.
+     */
+    public void update() {
+        update(byCurrency.values());
+        update(byCategory.values());
+    }
+
+    private void update(Collection<PriceIndex> indices) {
+        for (PriceIndex index : indices) index.update(item -> getRatio(item.getPrice()), this::getWeight);
+    }
+
+    /**
+     * Volume of the item during the last minute, used to weight it when the indices are weighted by volume.
+     */
+    public void volumeTraded(Item item, int volume) {
+
+        if (weighting != Weighting.VOLUME) return;
+
+        volumes.merge(item, (double) volume, (previous, current) -> previous + (current - previous) * VOLUME_SMOOTHING);
+    }
+
+    private double getRatio(Price price) {
+        return price.getInitialValue() == 0 ? 1 : price.getValue() / price.getInitialValue();
+    }
+
+    private double getWeight(Item item) {
+        return weighting == Weighting.VOLUME ? volumes.getOrDefault(item, 0.0) : 1;
+    }
+
+    public float getConsumerPriceIndex() { return getIndex(CurrenciesManager.getInstance().getDefaultCurrency()); }
+
+    /**
+     * @return index of the items of the currency, or 100 if there are none.
+     */
+    public float getIndex(Currency currency) {
+        PriceIndex index = byCurrency.get(currency);
+        return index == null ? 100 : (float) index.getValue();
+    }
+
+    /**
+     * @return index of the items of the category, or 100 if there are none.
+     */
+    public float getIndex(Category category) {
+        PriceIndex index = byCategory.get(category);
+        return index == null ? 100 : (float) index.getValue();
+    }
+
+    /**
+     * Saves the CPI of today if it hasn't been saved yet.
+     */
+    public void saveDailyValue() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (this) {
+            if (size > 0 && getLast().getLocalDateTime().toLocalDate().equals(now.toLocalDate())) return;
+        }
+
+        float value = getConsumerPriceIndex();
+
+        DatabaseManager.get().getDatabase().saveCPIValue(value);
+
+        addToHistory(new CPIInstant(value, now));
+    }
+
+    private synchronized void addToHistory(CPIInstant instant) {
+
+        if (size > 0 && getLast().getLocalDateTime().toLocalDate().equals(instant.getLocalDateTime().toLocalDate())) return;
+
+        history[(head + size) % history.length] = instant;
+
+        if (size < history.length) size++;
+        else head = (head + 1) % history.length;
+    }
+
+    private CPIInstant getLast() { return history[(head + size - 1) % history.length]; }
+
+    /**
+     * @return daily values of the CPI, oldest first.
+     */
+    public synchronized List<CPIInstant> getHistory() {
+
+        List<CPIInstant> instants = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) instants.add(history[(head + i) % history.length]);
+
+        return instants;
+    }
+
+}
@@ -2,7 +2,7 @@ package me.bounser.nascraft.market.limitorders;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
-import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.LimitOrderJournal;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.Item;
@@ -11,9 +11,15 @@ import org.bukkit.entity.Player;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LimitOrder {
 
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    // Creation order, breaks ties between orders with the same limit
+    private final long sequence = SEQUENCE.incrementAndGet();
+
     private UUID uuid;
     private Item item;
     private LocalDateTime expiration;
@@ -24,6 +30,7 @@ public class LimitOrder {
     private OrderType orderType;
 
     private boolean expired = false;
+    private boolean removed = false;
 
     public LimitOrder(UUID uuid, Item item, LocalDateTime expiration, int toComplete, int completed, double priceLimit, double cost, OrderType orderType) {
         this.uuid = uuid;
@@ -55,6 +62,14 @@ public class LimitOrder {
 
     public LocalDateTime getExpiration() { return expiration; }
 
+    public long getSequence() { return sequence; }
+
+    public boolean isOpen() { return !removed && !expired && completed != toComplete; }
+
+    void expire() { expired = true; }
+
+    void setRemoved() { removed = true; }
+
     public void checkOrder() {
 
         if (completed == toComplete) { return; }
@@ -66,6 +81,8 @@ public class LimitOrder {
             return;
         }
 
+        int completedBefore = completed;
+
         switch (orderType) {
 
             case LIMIT_BUY:
@@ -125,7 +142,7 @@ public class LimitOrder {
                 break;
         }
 
-        DatabaseManager.get().getDatabase().updateLimitOrder(uuid, item, completed, cost);
+        if (completed != completedBefore) LimitOrderJournal.getInstance().fill(this);
 
     }
 
@@ -3,18 +3,28 @@ package me.bounser.nascraft.market.limitorders;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.LimitOrderJournal;
 import me.bounser.nascraft.market.unit.Item;
 import org.bukkit.Bukkit;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class LimitOrdersManager {
 
-    private HashMap<LimitOrder, Boolean> limitOrders = new HashMap<>();
+    // One book per parent item, children trade against the price of their parent
+    private final HashMap<Item, OrderBook> books = new HashMap<>();
+
+    private final HashMap<UUID, List<LimitOrder>> ordersByOwner = new HashMap<>();
+
+    private final PriorityQueue<LimitOrder> expirations = new PriorityQueue<>(
+            Comparator.comparing(LimitOrder::getExpiration).thenComparingLong(LimitOrder::getSequence));
+
+    // Books whose price crossed their best bid or ask, matched on the next tick
+    private final Queue<OrderBook> triggered = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean matchScheduled = new AtomicBoolean(false);
 
     private List<Duration> durations;
 
@@ -24,9 +34,10 @@ public class LimitOrdersManager {
 
     private LimitOrdersManager() {
 
+        instance = this;
+
         if(!Config.getInstance().getLimitOrdersEnabled()) return;
 
-        instance = this;
         DatabaseManager.get().getDatabase().retrieveLimitOrders();
 
         durations = Config.getInstance().getDurations();
@@ -40,46 +51,116 @@ public class LimitOrdersManager {
     }
 
     public void registerLimitOrder(LimitOrder limitOrder) {
-        limitOrders.put(limitOrder, !limitOrder.isExpired());
+
+        if (limitOrder.getItem() == null) return;
+
+        ordersByOwner.computeIfAbsent(limitOrder.getOwnerUuid(), uuid -> new ArrayList<>()).add(limitOrder);
+
+        if (limitOrder.getExpiration().isBefore(LocalDateTime.now())) limitOrder.expire();
+
+        if (!limitOrder.isOpen()) return;
+
+        expirations.add(limitOrder);
+
+        OrderBook book = getBook(limitOrder.getItem());
+        book.add(limitOrder);
+        book.onPriceChange();
     }
 
     public void registerNewLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
 
-        limitOrders.put(new LimitOrder(uuid, item, expiration, amount, 0, price, 0, type == 1 ? OrderType.LIMIT_BUY : OrderType.LIMIT_SELL), true);
+        LimitOrder limitOrder = new LimitOrder(uuid, item, expiration, amount, 0, price, 0, type == 1 ? OrderType.LIMIT_BUY : OrderType.LIMIT_SELL);
+
+        // Logged before it can be matched so the insert is written ahead of any fill
+        LimitOrderJournal.getInstance().place(limitOrder);
 
-        DatabaseManager.get().getDatabase().addLimitOrder(uuid, expiration, item, type, price, amount);
+        registerLimitOrder(limitOrder);
     }
 
     public void deleteLimitOrder(LimitOrder limitOrder) {
 
-        limitOrders.remove(limitOrder);
+        limitOrder.setRemoved();
+
+        List<LimitOrder> owned = ordersByOwner.get(limitOrder.getOwnerUuid());
+        if (owned != null) {
+            owned.remove(limitOrder);
+            if (owned.isEmpty()) ordersByOwner.remove(limitOrder.getOwnerUuid());
+        }
+
+        OrderBook book = books.get(getParent(limitOrder.getItem()));
+        if (book != null) book.remove(limitOrder);
+
+        LimitOrderJournal.getInstance().cancel(limitOrder);
+    }
+
+    private OrderBook getBook(Item item) {
+        return books.computeIfAbsent(getParent(item), parent -> {
+            OrderBook book = new OrderBook(this, parent.getPrice());
+            parent.getPrice().setOrderBook(book);
+            return book;
+        });
+    }
+
+    private Item getParent(Item item) { return item.isParent() ? item : item.getParent(); }
+
+    /**
+     * Queues a book for matching on the main thread. Prices can change from any thread.
+     */
+    void trigger(OrderBook book) {
+
+        triggered.add(book);
+
+        if (matchScheduled.compareAndSet(false, true))
+            Bukkit.getScheduler().runTask(Nascraft.getInstance(), this::matchTriggered);
+    }
+
+    private void matchTriggered() {
 
-        DatabaseManager.get().getDatabase().removeLimitOrder(limitOrder.getOwnerUuid().toString(), limitOrder.getItem().getIdentifier());
+        matchScheduled.set(false);
 
+        OrderBook book;
+        while ((book = triggered.poll()) != null) {
+            book.clearTrigger();
+            match(book);
+        }
+    }
+
+    private void match(OrderBook book) {
+
+        for (LimitOrder limitOrder : book.getCrossedOrders()) {
+
+            limitOrder.checkOrder();
+
+            if (!limitOrder.isOpen()) book.remove(limitOrder);
+        }
     }
 
     public void checkOrders() {
 
-        for (LimitOrder limitOrder : limitOrders.keySet()) {
+        LocalDateTime now = LocalDateTime.now();
+
+        while (!expirations.isEmpty() && expirations.peek().getExpiration().isBefore(now)) {
 
-            if (!limitOrders.get(limitOrder)) continue;
+            LimitOrder limitOrder = expirations.poll();
 
-            if (limitOrder.isExpired() || limitOrder.isCompleted()) {
-                limitOrders.put(limitOrder, false);
-            } else {
-                limitOrder.checkOrder();
-            }
+            if (!limitOrder.isOpen()) continue;
+
+            limitOrder.expire();
+
+            OrderBook book = books.get(getParent(limitOrder.getItem()));
+            if (book != null) book.remove(limitOrder);
         }
+
+        // Orders that crossed but couldn't be filled (not enough money or items) are retried here
+        for (OrderBook book : books.values())
+            if (!book.isEmpty() && book.isCrossed()) match(book);
     }
 
     public List<LimitOrder> getPlayerLimitOrders(UUID uuid) {
 
-        List<LimitOrder> limitOrders = new ArrayList<>();
-
-        for (LimitOrder limitOrder : this.limitOrders.keySet())
-            if (limitOrder.getOwnerUuid().equals(uuid)) limitOrders.add(limitOrder);
+        List<LimitOrder> owned = ordersByOwner.get(uuid);
 
-        return limitOrders;
+        return owned == null ? new ArrayList<>() : new ArrayList<>(owned);
     }
 
 }
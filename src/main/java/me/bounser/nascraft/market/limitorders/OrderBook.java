@@ -0,0 +1,101 @@
+package me.bounser.nascraft.market.limitorders;
+
+import me.bounser.nascraft.market.unit.Price;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Open limit orders of one price. Buy orders are kept from the highest limit down and sell orders
+ * from the lowest limit up, so only the best of each side has to be compared on every price change.
+ */
+public class OrderBook {
+
+    private static final Comparator<LimitOrder> BIDS = Comparator.comparingDouble(LimitOrder::getPrice).reversed()
+            .thenComparingLong(LimitOrder::getSequence);
+
+    private static final Comparator<LimitOrder> ASKS = Comparator.comparingDouble(LimitOrder::getPrice)
+            .thenComparingLong(LimitOrder::getSequence);
+
+    private final LimitOrdersManager manager;
+    private final Price price;
+
+    private final TreeSet<LimitOrder> bids = new TreeSet<>(BIDS);
+    private final TreeSet<LimitOrder> asks = new TreeSet<>(ASKS);
+
+    // Best limits, read on every price change without locking
+    private volatile double bestBid = Double.NEGATIVE_INFINITY;
+    private volatile double bestAsk = Double.POSITIVE_INFINITY;
+
+    private final AtomicBoolean triggered = new AtomicBoolean(false);
+
+    public OrderBook(LimitOrdersManager manager, Price price) {
+        this.manager = manager;
+        this.price = price;
+    }
+
+    public synchronized void add(LimitOrder order) {
+        (order.getOrderType() == OrderType.LIMIT_BUY ? bids : asks).add(order);
+        refreshBest();
+    }
+
+    public synchronized boolean remove(LimitOrder order) {
+        boolean removed = (order.getOrderType() == OrderType.LIMIT_BUY ? bids : asks).remove(order);
+        if (removed) refreshBest();
+        return removed;
+    }
+
+    private void refreshBest() {
+        bestBid = bids.isEmpty() ? Double.NEGATIVE_INFINITY : bids.first().getPrice();
+        bestAsk = asks.isEmpty() ? Double.POSITIVE_INFINITY : asks.first().getPrice();
+    }
+
+    public synchronized boolean isEmpty() { return bids.isEmpty() && asks.isEmpty(); }
+
+    public synchronized int size() { return bids.size() + asks.size(); }
+
+    public Price getPrice() { return price; }
+
+    /**
+     * Called after every change of the price. Hands the book to the manager for matching only when
+     * the buy price falls below the best bid or the sell price rises above the best ask.
+     */
+    public void onPriceChange() {
+
+        if (!isCrossed()) return;
+
+        if (triggered.compareAndSet(false, true)) manager.trigger(this);
+    }
+
+    public boolean isCrossed() {
+        return price.getBuyPrice() < bestBid || price.getSellPrice() > bestAsk;
+    }
+
+    void clearTrigger() { triggered.set(false); }
+
+    /**
+     * Orders whose limit is crossed by the current price, best limits first.
+     */
+    public synchronized List<LimitOrder> getCrossedOrders() {
+
+        List<LimitOrder> crossed = new ArrayList<>();
+
+        double buyPrice = price.getBuyPrice();
+        for (LimitOrder order : bids) {
+            if (buyPrice >= order.getPrice()) break;
+            crossed.add(order);
+        }
+
+        double sellPrice = price.getSellPrice();
+        for (LimitOrder order : asks) {
+            if (sellPrice <= order.getPrice()) break;
+            crossed.add(order);
+        }
+
+        return crossed;
+    }
+
+}
@@ -2,10 +2,8 @@ package me.bounser.nascraft.market.resources;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
-import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.config.Config;
-import me.bounser.nascraft.market.unit.stats.Instant;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -102,12 +100,9 @@ public class Category {
         double changes = 0;
 
         for (Item item : items) {
-            List<Instant> dayPrices = DatabaseManager.get().getDatabase().getDayPrices(item);
-            if (!dayPrices.isEmpty()) {
-                Instant firstInstant = dayPrices.get(0);
-                if (firstInstant.getPrice() != 0) {
-                    changes += ((item.getPrice().getValue() - firstInstant.getPrice()) / firstInstant.getPrice());
-                }
+            double firstValue = item.getItemStats().getDayOpen();
+            if (firstValue != 0) {
+                changes += ((item.getPrice().getValue() - firstValue) / firstValue);
             }
         }
         return items.isEmpty() ? 0 : changes / items.size();
@@ -7,6 +7,7 @@ import me.bounser.nascraft.api.events.TransactionCompletedEvent;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.TradeJournal;
 import me.bounser.nascraft.api.events.BuyItemEvent;
 import me.bounser.nascraft.api.events.SellItemEvent;
 import me.bounser.nascraft.database.commands.resources.Trade;
@@ -21,7 +22,6 @@ import me.bounser.nascraft.managers.MoneyManager;
 import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.formatter.Style;
-import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.market.unit.stats.ItemStats;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
@@ -56,6 +56,8 @@ public class Item {
 
     private float collectedTaxes;
 
+    private volatile boolean dirty = true;
+
     private ItemStats itemStats;
 
     private final float multiplier;
@@ -223,7 +225,7 @@ public class Item {
 
         Trade trade = new Trade(this, LocalDateTime.now(), worth, amount, true, false, uuid);
 
-        DatabaseManager.get().getDatabase().saveTrade(trade);
+        TradeJournal.getInstance().log(trade);
 
         if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
             DiscordLog.getInstance().sendTradeLog(trade);
@@ -303,7 +305,7 @@ public class Item {
 
         Trade trade = new Trade(this, LocalDateTime.now(), worth, amount, false, false, uuid);
 
-        DatabaseManager.get().getDatabase().saveTrade(trade);
+        TradeJournal.getInstance().log(trade);
         if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
             DiscordLog.getInstance().sendTradeLog(trade);
         MarketManager.getInstance().addOperation();
@@ -314,6 +316,17 @@ public class Item {
         return worth;
     }
 
+    /**
+     * Registers a sale already priced and paid for by a bulk operation. Only the internal values are
+     * updated: no events, messages or trade logs.
+     */
+    public void registerBulkSale(int amount, float stockChange) {
+        updateInternalValues(amount,
+                amount*price.getValue(),
+                stockChange,
+                price.getValue()*(1-price.getBuyTaxMultiplier())*stockChange);
+    }
+
     public List<Double> getValuesPastHour() {
         return price.getValuesPastHour();
     }
@@ -333,6 +346,7 @@ public class Item {
         this.volume += volume;
         this.price.changeStock(stockChange);
         this.collectedTaxes += taxes;
+        this.dirty = true;
     }
 
     public String getIdentifier() { return identifier; }
@@ -375,7 +389,14 @@ public class Item {
 
     public float getCollectedTaxes() { return collectedTaxes; }
 
-    public void setCollectedTaxes(float newCollectedTaxes) { collectedTaxes = newCollectedTaxes; }
+    public void setCollectedTaxes(float newCollectedTaxes) { collectedTaxes = newCollectedTaxes; dirty = true; }
+
+    public boolean isDirty() { return dirty || price.isDirty(); }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+        price.setDirty(dirty);
+    }
 
     public void addVolume(int volume) { this.volume += volume; }
 
@@ -413,13 +434,11 @@ public class Item {
     public boolean isPriceRestricted() { return restricted; }
 
     public double getChangeLastDay() {
-        Instant firstInstant = DatabaseManager.get().getDatabase().getDayPrices(this).get(0);
-
-        double firstValue = firstInstant.getPrice();
+        double firstValue = itemStats.getDayOpen();
 
         if (firstValue == 0) return 0;
 
-        return ((price.getValue() - firstInstant.getPrice()) / firstInstant.getPrice());
+        return ((price.getValue() - firstValue) / firstValue);
     }
 
 }
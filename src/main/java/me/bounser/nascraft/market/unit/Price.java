@@ -2,48 +2,43 @@ package me.bounser.nascraft.market.unit;
 
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.formatter.RoundUtils;
+import me.bounser.nascraft.market.limitorders.OrderBook;
+import me.bounser.nascraft.market.unit.stats.RollingWindow;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Price {
 
     private Item item;
 
-    private double value;
+    // Stock, value and limits. Replaced as a whole on every change, never locked.
+    private final AtomicReference<PriceState> state = new AtomicReference<>(new PriceState(0, 0, 0, 0, 0, 0));
 
     private int precission;
 
-    private double topLimit;
-    private double lowLimit;
+    private volatile double topLimit;
+    private volatile double lowLimit;
 
     private double upperStockThreshold;
     private double lowerStockThreshold;
 
-    private double previousValue;
+    private volatile double previousValue;
 
-    private double initialValue;
+    private volatile double initialValue;
 
-    private float stock;
+    private volatile double support;
+    private volatile double resistance;
+    private volatile float noiseIntensity;
 
-    private double support;
-    private double resistance;
-    private float noiseIntensity;
+    private volatile float elasticity;
 
-    private float elasticity;
+    // Highs and lows of the last 24 closed hours.
+    private final RollingWindow dayHigh = new RollingWindow(24);
+    private final RollingWindow dayLow = new RollingWindow(24);
 
-    private double historicalHigh;
-    private double historicalLow;
-
-    private double hourHigh;
-    private double hourLow;
-    private final List<Double> dayHigh = new ArrayList<>();
-    private final List<Double> dayLow = new ArrayList<>();
-
-    private List<Double> hourValues;
+    // One value per minute over the last hour.
+    private final RollingWindow hourValues = new RollingWindow(60);
 
     private final float taxBuy;
     private final float taxSell;
@@ -63,12 +58,18 @@ public class Price {
     private float yearChange;
     private float allChange;
 
+    // Set whenever stock, value or historical limits change and cleared once persisted.
+    private volatile boolean dirty = true;
+
+    // Limit orders on this price, told about every change of stock along with the leaderboards and price indices.
+    private volatile OrderBook orderBook;
+
     public Price(Item item, float initialValue, float elasticity, float support, float resistance, float noiseIntensity) {
 
         this.item = item;
 
         updateValue();
-        previousValue = value;
+        previousValue = getValue();
 
         precission = item.getCurrency().getDecimalPrecission();
 
@@ -80,10 +81,8 @@ public class Price {
 
         this.initialValue = initialValue;
 
-        hourHigh = value;
-        hourLow = value;
-        dayHigh.add(hourHigh);
-        dayLow.add(hourLow);
+        dayHigh.add(getState().getHourHigh());
+        dayLow.add(getState().getHourLow());
         this.support = support;
         this.resistance = resistance;
         this.noiseIntensity = noiseIntensity * Config.getInstance().getNoiseMultiplier();
@@ -96,15 +95,22 @@ public class Price {
         lowerStockThreshold = getStockFromValue(lowLimit);
     }
 
-    public double getValue() { return value; }
+    public PriceState getState() { return state.get(); }
+
+    public double getValue() { return state.get().getValue(); }
 
-    public double getBuyPrice() { return value * taxBuy; }
+    public double getBuyPrice() { return getValue() * taxBuy; }
 
-    public double getSellPrice() { return value * taxSell; }
+    public double getSellPrice() { return getValue() * taxSell; }
 
     public void setStock(float stock) {
-        this.stock = stock;
-        updateValue();
+        PriceState current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, withStock(current, stock)));
+
+        dirty = true;
+        notifyChange();
     }
 
     public void setDayHigh(double dayHigh) {
@@ -195,7 +201,7 @@ public class Price {
 
     public float getAllChange() { return allChange; }
 
-    public float getStock() { return stock; }
+    public float getStock() { return state.get().getStock(); }
 
     public float getElasticity() { return elasticity; }
 
@@ -207,7 +213,7 @@ public class Price {
 
         if (elasticity == 0) return true;
 
-        float newStock = stock + change;
+        float newStock = getStock() + change;
 
         if (!buy) return !(newStock > lowerStockThreshold);
         else return !(newStock < upperStockThreshold);
@@ -217,7 +223,10 @@ public class Price {
 
         double stockToReach = getStockFromValue(priceToReach);
 
-        if (priceToReach > value) {
+        PriceState current = state.get();
+        float stock = current.getStock();
+
+        if (priceToReach > current.getValue()) {
             return Math.floor(Math.abs(stock - stockToReach));
         } else {
             return -Math.floor(Math.abs(stock - stockToReach));
@@ -226,139 +235,183 @@ public class Price {
 
     public void changeStock(float change) {
 
+        float effectiveChange;
+
         if (Config.getInstance().takeIntoAccountTax()) {
 
             if (change > 0) {
-                stock += change * (1 + (1-taxSell));
+                effectiveChange = change * (1 + (1-taxSell));
             } else {
-                stock += change * taxBuy;
+                effectiveChange = change * taxBuy;
             }
 
         } else {
-            stock += change;
+            effectiveChange = change;
         }
 
-        updateValue();
+        addStock(effectiveChange);
     }
 
-    public void enforceLimits() {
+    /**
+     * Atomically adds to the stock and publishes the resulting state.
+     */
+    private PriceState addStock(float change) {
+        PriceState current, next;
+        do {
+            current = state.get();
+            next = withStock(current, current.getStock() + change);
+        } while (!state.compareAndSet(current, next));
+
+        dirty = true;
+        notifyChange();
+        return next;
+    }
+
+    private void notifyChange() {
+        OrderBook book = orderBook;
+        if (book != null) book.onPriceChange();
+    }
+
+    public void setOrderBook(OrderBook orderBook) { this.orderBook = orderBook; }
+
+    private PriceState withStock(PriceState current, float stock) {
+
+        double value = enforceLimits((float) (initialValue * Math.exp(-0.0005 * elasticity * stock)));
+
+        return new PriceState(
+                stock,
+                value,
+                Math.max(current.getHourHigh(), value),
+                Math.min(current.getHourLow(), value),
+                Math.max(current.getHistoricalHigh(), value),
+                Math.min(current.getHistoricalLow(), value));
+    }
+
+    public void enforceLimits() { updateValue(); }
+
+    private double enforceLimits(double value) {
         value = Math.min(value, topLimit);
-        value = Math.max(value, lowLimit);
+        return Math.max(value, lowLimit);
     }
 
     public void applyNoise() {
 
         if (elasticity == 0 || noiseIntensity == 0) return;
 
-        float prevStock = stock;
+        double value = getValue();
+        float change;
 
         if (support != 0 && value < support && Math.random() > 0.8) {
 
-            stock -= (float) ((8 - 12 * Math.random()) * noiseIntensity);
+            change = (float) -((8 - 12 * Math.random()) * noiseIntensity);
 
         } else if (resistance != 0 && value > resistance && Math.random() > 0.8) {
 
-            stock += (float) ((8 - 12 * Math.random()) * noiseIntensity);
+            change = (float) ((8 - 12 * Math.random()) * noiseIntensity);
 
         } else {
 
-            stock += (float) ((10 - 20 * Math.random()) * noiseIntensity);
+            change = (float) ((10 - 20 * Math.random()) * noiseIntensity);
 
         }
 
-        updateValue();
+        addStock(change);
 
-        item.addVolume(Math.abs(Math.round(stock - prevStock)));
+        item.addVolume(Math.abs(Math.round(change)));
     }
 
     public double getChange() {
+        double value = getValue();
         double change = -100 + 100*value/previousValue;
         previousValue = value;
 
         return change;
     }
 
-    public double getHistoricalHigh() { return historicalHigh; }
-
-    public double getHistoricalLow() { return historicalLow; }
+    public double getHistoricalHigh() { return state.get().getHistoricalHigh(); }
 
-    public void setHistoricalHigh(float newHistoricalHigh) { historicalHigh = newHistoricalHigh; }
+    public double getHistoricalLow() { return state.get().getHistoricalLow(); }
 
-    public void setHistoricalLow(float newHistoricalLow) { historicalLow = newHistoricalLow; }
+    public void setHistoricalHigh(float newHistoricalHigh) {
+        PriceState current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new PriceState(current.getStock(), current.getValue(),
+                current.getHourHigh(), current.getHourLow(), newHistoricalHigh, current.getHistoricalLow())));
 
-    public double getDayHigh() {
-
-        double high = dayHigh.get(0);
-
-        for (double value : dayHigh) if (value > high) high = value;
-
-        return Math.max(hourHigh, high);
+        dirty = true;
     }
 
-    public double getDayLow() {
-
-        double low = dayLow.get(0);
+    public void setHistoricalLow(float newHistoricalLow) {
+        PriceState current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new PriceState(current.getStock(), current.getValue(),
+                current.getHourHigh(), current.getHourLow(), current.getHistoricalHigh(), newHistoricalLow)));
 
-        for (double value : dayLow) if (low > value) low = value;
-
-        return Math.min(hourLow, low);
+        dirty = true;
     }
 
-    public void updateValue() {
+    public boolean isDirty() { return dirty; }
 
-        value = (float) (initialValue * Math.exp(-0.0005 * elasticity * stock));
-        enforceLimits();
-        updateLimits();
+    public void setDirty(boolean dirty) { this.dirty = dirty; }
 
-    }
+    public double getDayHigh() { return Math.max(state.get().getHourHigh(), dayHigh.getMax()); }
 
-    private void updateLimits() {
-        if (value > historicalHigh) { historicalHigh = value; }
-        if (value < historicalLow) { historicalLow = value; }
+    public double getDayLow() { return Math.min(state.get().getHourLow(), dayLow.getMin()); }
 
-        if (value > hourHigh) { hourHigh = value; }
-        if (value < hourLow) { hourLow = value; }
-    }
+    public void updateValue() { addStock(0); }
 
     public void restartHourLimits() {
 
-        if (dayHigh.size() == 24) {
-            dayHigh.remove(0);
-            dayLow.remove(0);
+        PriceState current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new PriceState(current.getStock(), current.getValue(),
+                current.getValue(), current.getValue(), current.getHistoricalHigh(), current.getHistoricalLow())));
 
-            dayHigh.add(hourHigh);
-            dayLow.add(hourLow);
-        }
-        hourLow = value;
-        hourHigh = value;
+        dayHigh.add(current.getHourHigh());
+        dayLow.add(current.getHourLow());
     }
 
     public void initializeHourValues(double value) {
-        if (hourValues == null)
-            hourValues = new ArrayList<>(Collections.nCopies(60, value));
+        if (hourValues.isEmpty())
+            hourValues.fill(value);
     }
 
     public void addValueToShortTermStorage() {
-        hourValues.remove(0);
-        hourValues.add(value);
+        hourValues.add(getValue());
     }
 
     public float getValueChangeLastHour() {
-        return RoundUtils.roundToOne((float) (-100 + 100*value/hourValues.get(0)));
+        return RoundUtils.roundToOne((float) (-100 + 100*getValue()/getValueAnHourAgo()));
     }
 
-    public double getValueAnHourAgo() { return hourValues.get(0); }
+    public double getValueAnHourAgo() { return hourValues.isEmpty() ? getValue() : hourValues.getOldest(); }
+
+    public List<Double> getValuesPastHour() { return hourValues.asList(); }
+
+    public double getHighPastHour() { return hourValues.getMax(); }
 
-    public List<Double> getValuesPastHour() { return hourValues; }
+    public double getLowPastHour() { return hourValues.getMin(); }
+
+    // Position, from the oldest minute, of the latest occurrence of the high or low of the last hour.
+    public int getHighPastHourIndex() { return hourValues.getMaxIndex(); }
+
+    public int getLowPastHourIndex() { return hourValues.getMinIndex(); }
 
     public double getProjectedCost(float stockChange, float tax) {
+        return projectedCost(state.get(), stockChange, tax, Config.getInstance().takeIntoAccountTax());
+    }
+
+    private double projectedCost(PriceState current, float stockChange, float tax, boolean taxAffectsStock) {
 
         if (elasticity == 0)
-            return roundToDecimals(Math.abs((value * stockChange * tax)), precission);
+            return roundToDecimals(Math.abs((current.getValue() * stockChange * tax)), precission);
 
         float change;
 
-        if (Config.getInstance().takeIntoAccountTax()) {
+        if (taxAffectsStock) {
 
             if (stockChange > 0) {
                 change = stockChange * (1 + (1-taxSell));
@@ -370,11 +423,39 @@ public class Price {
             change = stockChange;
         }
 
-        double cost = integratePiecewise(stock, stock + change);
+        double cost = integratePiecewise(current.getStock(), current.getStock() + change);
 
         return roundToDecimals(cost*tax, precission);
     }
 
+    /**
+     * Projected cost of several lines at once. Line i moves the stock of prices[indices[i]] by quantities[i]:
+     * positive quantities are sells and use the sell tax, negative ones are buys and use the buy tax.
+     * @param costs receives the cost of each line, must be at least as long as indices
+     * @return the sum of all costs
+     */
+    public static double quote(Price[] prices, int[] indices, float[] quantities, double[] costs) {
+
+        boolean taxAffectsStock = Config.getInstance().takeIntoAccountTax();
+        double total = 0;
+
+        for (int i = 0; i < indices.length; i++) {
+            float quantity = quantities[i];
+
+            if (quantity == 0) {
+                costs[i] = 0;
+                continue;
+            }
+
+            Price price = prices[indices[i]];
+
+            costs[i] = price.projectedCost(price.state.get(), quantity, quantity > 0 ? price.taxSell : price.taxBuy, taxAffectsStock);
+            total += costs[i];
+        }
+
+        return total;
+    }
+
     public double integratePiecewise(double start, double end) {
 
         double initialStock = start;
@@ -439,9 +520,7 @@ public class Price {
     public Price setResistance(double resistance) { this.resistance = resistance; return this; }
 
     public static float roundToDecimals(double value, int decimals) {
-        BigDecimal bd = new BigDecimal(Double.toString(value));
-        bd = bd.setScale(decimals, RoundingMode.HALF_UP); // Rounds up if the digit is >= 5
-        return (float) bd.doubleValue();
+        return (float) RoundUtils.roundHalfUp(value, decimals);
     }
 
     public double getStockFromValue(double value) {
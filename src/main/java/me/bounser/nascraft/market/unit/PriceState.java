@@ -0,0 +1,39 @@
+package me.bounser.nascraft.market.unit;
+
+/**
+ * Immutable view of the changing part of a price. Every change publishes a new instance,
+ * so all the values read from one instance are consistent with each other.
+ */
+public final class PriceState {
+
+    private final float stock;
+    private final double value;
+
+    private final double hourHigh;
+    private final double hourLow;
+
+    private final double historicalHigh;
+    private final double historicalLow;
+
+    public PriceState(float stock, double value, double hourHigh, double hourLow, double historicalHigh, double historicalLow) {
+        this.stock = stock;
+        this.value = value;
+        this.hourHigh = hourHigh;
+        this.hourLow = hourLow;
+        this.historicalHigh = historicalHigh;
+        this.historicalLow = historicalLow;
+    }
+
+    public float getStock() { return stock; }
+
+    public double getValue() { return value; }
+
+    public double getHourHigh() { return hourHigh; }
+
+    public double getHourLow() { return hourLow; }
+
+    public double getHistoricalHigh() { return historicalHigh; }
+
+    public double getHistoricalLow() { return historicalLow; }
+
+}
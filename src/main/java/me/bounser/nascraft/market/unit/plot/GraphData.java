@@ -3,7 +3,6 @@ package me.bounser.nascraft.market.unit.plot;
 import me.bounser.nascraft.managers.GraphManager;
 import me.bounser.nascraft.market.unit.Item;
 
-import java.util.Collections;
 import java.util.List;
 
 public class GraphData {
@@ -53,8 +52,8 @@ public class GraphData {
         y = new int[values.size()];
         py = new int[values.size() + 2];
 
-        double maxValue = Collections.max(values);
-        double minValue = Collections.min(values);
+        double maxValue = item.getPrice().getHighPastHour();
+        double minValue = item.getPrice().getLowPastHour();
 
         int i = 0;
         for (double value : values) {
@@ -5,7 +5,6 @@ import me.bounser.nascraft.market.unit.Item;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 
@@ -37,8 +36,8 @@ public class PlotData {
             y = new int[values.size()];
         }
 
-        double maxValue = Collections.max(values);
-        double minValue = Collections.min(values);
+        double maxValue = item.getPrice().getHighPastHour();
+        double minValue = item.getPrice().getLowPastHour();
 
         int i = 0;
         for (double value : values) {
@@ -101,23 +100,19 @@ public class PlotData {
 
         float z = (float) size /(points-1);
 
-        Double min = Collections.min(item.getPrice().getValuesPastHour());
-
-        return new double[]{min, z*item.getPrice().getValuesPastHour().lastIndexOf(min)};
+        return new double[]{item.getPrice().getLowPastHour(), z*item.getPrice().getLowPastHourIndex()};
     }
 
     public double[] getHighestValue(int size, int points) {
 
         float z = (float) size /(points-1);
 
-        double max = Collections.max(item.getPrice().getValuesPastHour());
-
-        return new double[]{max, z*item.getPrice().getValuesPastHour().lastIndexOf(max)};
+        return new double[]{item.getPrice().getHighPastHour(), z*item.getPrice().getHighPastHourIndex()};
     }
 
     public int[] getExtremePositions(int offset, int size) {
 
-        if (Collections.min(item.getPrice().getValuesPastHour()) == Collections.max(item.getPrice().getValuesPastHour()))
+        if (item.getPrice().getLowPastHour() == item.getPrice().getHighPastHour())
             return new int[]{0, 0};
 
         int graphArea = (int) Math.round(size*0.9);
@@ -0,0 +1,51 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.time.LocalDateTime;
+
+/**
+ * Open, high, low and close prices of a bucket, along with its average price and traded volume.
+ * The epoch is the middle of the bucket, in seconds of the server's local time.
+ */
+public class Candle {
+
+    private final long epoch;
+
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final double average;
+    private final int volume;
+
+    public Candle(long epoch, double open, double high, double low, double close, double average, int volume) {
+        this.epoch = epoch;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.average = average;
+        this.volume = volume;
+    }
+
+    // Rows stored before candles were tracked only have an average price.
+    public static Candle flat(long epoch, double price, int volume) {
+        return new Candle(epoch, price, price, price, price, price, volume);
+    }
+
+    public long getEpoch() { return epoch; }
+
+    public LocalDateTime getLocalDateTime() { return PriceSeries.toLocalDateTime(epoch); }
+
+    public double getOpen() { return open; }
+
+    public double getHigh() { return high; }
+
+    public double getLow() { return low; }
+
+    public double getClose() { return close; }
+
+    public double getAverage() { return average; }
+
+    public int getVolume() { return volume; }
+
+}
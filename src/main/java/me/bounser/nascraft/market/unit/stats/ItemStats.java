@@ -1,88 +1,95 @@
 package me.bounser.nascraft.market.unit.stats;
 
-import me.bounser.nascraft.database.sqlite.SQLite;
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
 import me.bounser.nascraft.market.unit.Item;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ItemStats {
 
-    private List<Instant> dataMinute = new ArrayList<>();
-
-    private List<Instant> dataDay = new ArrayList<>();
-
-
     private Item item;
 
-    public ItemStats(Item item) { this.item = item; }
+    private final PriceRollup rollup;
 
-    public void addInstant(Instant instant) {
+    private PriceHistory history;
 
-        dataMinute.add(instant);
+    public ItemStats(Item item) {
+        this.item = item;
+        rollup = new PriceRollup(item);
+    }
 
-        if (dataMinute.size() % 5 == 0) {
+    public void setHistory(PriceHistory history) { this.history = history; }
 
-            while (dataMinute.size() > 60)  dataMinute.remove(0);
+    public PriceHistory getHistory() { return history; }
 
-            Instant dayInstant = new Instant(
-                    getLocalDateTimeBetween(LocalDateTime.now(), dataMinute.get(dataMinute.size()-5).getLocalDateTime()),
-                    priceAverage(dataMinute.subList(dataMinute.size()-5, dataMinute.size()-1)),
-                    volumeAdder(dataMinute.subList(dataMinute.size()-5, dataMinute.size()-1)));
+    public void recordHistory(HistoryEntry entry) {
+        if (history != null) history.record(entry);
+    }
 
-            dataDay.add(dayInstant);
+    public List<Instant> getDayPrices() {
+        if (history != null && history.isLoaded()) return history.getDayPrices();
+        return DatabaseManager.get().getDatabase().getDayPrices(item);
+    }
 
-            SQLite.getInstance().saveDayPrice(item, dayInstant);
+    public List<Instant> getMonthPrices() {
+        if (history != null && history.isLoaded()) return history.getMonthPrices();
+        return DatabaseManager.get().getDatabase().getMonthPrices(item);
+    }
 
-            while (dataDay.size() > 288)  dataDay.remove(0);
+    public List<Instant> getYearPrices() {
+        if (history != null && history.isLoaded()) return history.getYearPrices();
+        return DatabaseManager.get().getDatabase().getYearPrices(item);
+    }
 
-            // if (dataDay.size() < 12) return;
+    public List<Instant> getAllPrices() {
+        if (history != null && history.isLoaded()) return history.getAllPrices();
+        return DatabaseManager.get().getDatabase().getAllPrices(item);
+    }
 
-            Instant bigDayInstant = new Instant(
-                    LocalDateTime.now(),
-                    priceAverage(dataDay),
-                    volumeAdder(dataDay));
+    /**
+     * Closed candles of the given resolution followed by the one still in progress, oldest first.
+     */
+    public List<Candle> getCandles(Resolution resolution) {
+        List<Candle> candles = getStoredCandles(resolution);
 
-            SQLite.getInstance().saveMonthPrice(item, bigDayInstant);
+        Candle current = rollup.getOpenCandle(resolution);
+        if (current != null) candles.add(current);
 
-            SQLite.getInstance().saveHistoryPrices(item, bigDayInstant);
-        }
+        return candles;
     }
 
-    public float priceAverage(List<Instant> instants) {
-        if (instants.isEmpty())
-            return 0;
-
-        float price = 0;
-        for (Instant instantPrice : instants) {
-            price += instantPrice.getPrice();
-        }
+    private List<Candle> getStoredCandles(Resolution resolution) {
+        if (history != null && history.isLoaded()) return history.getCandles(resolution);
 
-        return price / instants.size();
+        int limit = resolution == Resolution.FIVE_MINUTES ? PriceHistory.DAY_SAMPLES : PriceHistory.MONTH_SAMPLES;
+        return new ArrayList<>(DatabaseManager.get().getDatabase().getCandles(item, resolution, limit));
     }
 
-    public int volumeAdder(List<Instant> instants) {
-        if (instants.isEmpty())
-            return 0;
+    public double getDayOpen() {
+        if (history != null && history.isLoaded()) return history.getDayOpen();
 
-        int volume = 0;
-        for (Instant instantVolume : instants) {
-            volume += instantVolume.getVolume();
-        }
-
-        return volume;
+        List<Instant> dayPrices = DatabaseManager.get().getDatabase().getDayPrices(item);
+        return dayPrices.isEmpty() ? 0 : dayPrices.get(0).getPrice();
     }
 
-    public LocalDateTime getLocalDateTimeBetween(LocalDateTime fecha1, LocalDateTime fecha2) {
-        Duration diferencia = Duration.between(fecha1, fecha2);
-
-        Duration mitadDiferencia = diferencia.dividedBy(2);
+    /**
+     * Feeds a minute sample to the rollup, adding to entries every bucket it completes and, every 5 minutes,
+     * the buckets still in progress.
+     */
+    public void addInstant(Instant instant, List<HistoryEntry> entries) {
+        rollup.add(PriceSeries.toEpoch(instant.getLocalDateTime()), instant.getPrice(), instant.getVolume(), entries);
+    }
 
-        LocalDateTime menorFecha = (fecha1.isBefore(fecha2)) ? fecha1 : fecha2;
+    public void addOpenEntries(List<HistoryEntry> entries) { rollup.addOpenEntries(entries); }
 
-        return menorFecha.plus(mitadDiferencia);
+    /**
+     * Picks up the 4 hour and daily buckets in progress from the stored 5 minute candles.
+     */
+    public void resumeRollup() {
+        rollup.resume(getStoredCandles(Resolution.FIVE_MINUTES), PriceSeries.toEpoch(LocalDateTime.now()));
     }
 
 }
@@ -0,0 +1,135 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import me.bounser.nascraft.database.Database;
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory copy of the stored price history of an item, used to draw charts without querying the database.
+ * Kept up to date with the same closed buckets that are written to the database.
+ */
+public class PriceHistory {
+
+    public static final int DAY_SAMPLES = 288;
+    public static final int MONTH_SAMPLES = 400;
+
+    private final Item item;
+
+    private final PriceSeries day;
+    private final PriceSeries month;
+    private final PriceSeries history;
+
+    private volatile boolean loaded = false;
+
+    public PriceHistory(Item item, int historyDays) {
+        this.item = item;
+        day = new PriceSeries(DAY_SAMPLES);
+        month = new PriceSeries(MONTH_SAMPLES);
+        history = new PriceSeries(historyDays);
+    }
+
+    public void load(Database database) {
+        fill(day, database.getCandles(item, Resolution.FIVE_MINUTES, day.getCapacity()));
+        fill(month, database.getCandles(item, Resolution.FOUR_HOURS, month.getCapacity()));
+        fill(history, database.getCandles(item, Resolution.DAILY, history.getCapacity()));
+        loaded = true;
+    }
+
+    private void fill(PriceSeries series, List<Candle> candles) {
+        series.clear();
+        for (Candle candle : candles) series.add(candle);
+    }
+
+    public boolean isLoaded() { return loaded; }
+
+    public void record(HistoryEntry entry) {
+        getSeries(entry.getResolution()).add(entry.getCandle());
+    }
+
+    private PriceSeries getSeries(Resolution resolution) {
+        switch (resolution) {
+            case FIVE_MINUTES: return day;
+            case FOUR_HOURS: return month;
+            default: return history;
+        }
+    }
+
+    /**
+     * Stored candles of the given resolution, oldest first.
+     */
+    public List<Candle> getCandles(Resolution resolution) {
+        PriceSeries series = getSeries(resolution);
+        List<Candle> candles = new ArrayList<>(series.size() + 1);
+        series.copyCandlesTo(candles, Long.MIN_VALUE);
+        return candles;
+    }
+
+    public List<Instant> getDayPrices() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Instant> prices = new ArrayList<>(day.size() + 3);
+
+        prices.add(new Instant(now.minusHours(24), 0, 0));
+        if (day.isEmpty()) prices.add(new Instant(now.minusMinutes(5), 0, 0));
+        else day.copyTo(prices, PriceSeries.toEpoch(now.minusHours(24)), true);
+        prices.add(new Instant(now, item.getPrice().getValue(), item.getVolume()));
+
+        return prices;
+    }
+
+    public List<Instant> getMonthPrices() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Instant> prices = new ArrayList<>(month.size() + 3);
+
+        prices.add(new Instant(now.minusDays(30), 0, 0));
+        if (month.isEmpty()) prices.add(new Instant(now.minusMinutes(5), 0, 0));
+        else month.copyTo(prices, PriceSeries.toEpoch(now.minusDays(30)), false);
+        prices.add(new Instant(now, item.getPrice().getValue(), item.getVolume()));
+
+        return prices;
+    }
+
+    public List<Instant> getYearPrices() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Instant> prices = new ArrayList<>(Math.min(history.size(), 366) + 3);
+
+        prices.add(new Instant(now.minusDays(365), 0, 0));
+        if (history.isEmpty()) prices.add(new Instant(now.minusMinutes(5), 0, 0));
+        else history.copyTo(prices, PriceSeries.toEpoch(now.minusDays(365)), false);
+        prices.add(new Instant(now, item.getPrice().getValue(), item.getVolume()));
+
+        return prices;
+    }
+
+    public List<Instant> getAllPrices() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Instant> prices = new ArrayList<>(history.size() + 3);
+
+        if (history.isEmpty()) {
+            prices.add(new Instant(now.minusDays(30), 0, 0));
+            prices.add(new Instant(now.minusMinutes(5), 0, 0));
+        } else {
+            history.copyTo(prices, Long.MIN_VALUE, false);
+        }
+        prices.add(new Instant(now, item.getPrice().getValue(), item.getVolume()));
+
+        return prices;
+    }
+
+    /**
+     * Oldest non-zero price of the last 24 hours, or 0 if there is none.
+     */
+    public double getDayOpen() {
+        return day.getFirstPriceAfter(PriceSeries.toEpoch(LocalDateTime.now().minusHours(24)));
+    }
+
+    public long getBytes() { return day.getBytes() + month.getBytes() + history.getBytes(); }
+
+    public static long getBytes(int historyDays) {
+        return (long) (DAY_SAMPLES + MONTH_SAMPLES + Math.max(1, historyDays)) * PriceSeries.BYTES_PER_SAMPLE;
+    }
+
+}
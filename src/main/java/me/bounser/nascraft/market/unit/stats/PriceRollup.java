@@ -0,0 +1,137 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import me.bounser.nascraft.database.commands.resources.HistoryEntry;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.List;
+
+/**
+ * Running OHLCV aggregates of the minute samples of an item, one per resolution.
+ * Buckets are aligned to the clock and emitted once the first sample of the next bucket arrives. Every 5 minutes
+ * the 4 hour and daily buckets in progress are emitted too, as open entries.
+ */
+public class PriceRollup {
+
+    private final Item item;
+
+    private final Bucket[] buckets;
+
+    public PriceRollup(Item item) {
+        this.item = item;
+
+        Resolution[] resolutions = Resolution.values();
+        buckets = new Bucket[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) buckets[i] = new Bucket(resolutions[i]);
+    }
+
+    public synchronized void add(long epoch, double price, int volume, List<HistoryEntry> entries) {
+
+        boolean fiveMinutesClosed = buckets[Resolution.FIVE_MINUTES.ordinal()].add(epoch, price, volume, entries);
+
+        for (int i = Resolution.FIVE_MINUTES.ordinal() + 1; i < buckets.length; i++)
+            buckets[i].add(epoch, price, volume, entries);
+
+        if (fiveMinutesClosed) addOpenEntries(entries);
+    }
+
+    /**
+     * Adds the 4 hour and daily buckets in progress to entries, as open entries.
+     */
+    public synchronized void addOpenEntries(List<HistoryEntry> entries) {
+        for (Bucket bucket : buckets)
+            if (bucket.resolution != Resolution.FIVE_MINUTES && bucket.samples > 0)
+                entries.add(new HistoryEntry(item, bucket.resolution, bucket.start, bucket.toCandle(), true));
+    }
+
+    /**
+     * Fills the 4 hour and daily buckets in progress with the stored 5 minute candles that fall in them,
+     * so a restart doesn't start them over.
+     */
+    public synchronized void resume(List<Candle> fiveMinuteCandles, long now) {
+        for (Bucket bucket : buckets) {
+            if (bucket.resolution == Resolution.FIVE_MINUTES || bucket.samples > 0) continue;
+
+            long start = bucket.resolution.getBucketStart(now);
+
+            for (Candle candle : fiveMinuteCandles)
+                if (bucket.resolution.getBucketStart(candle.getEpoch()) == start) bucket.merge(start, candle);
+        }
+    }
+
+    /**
+     * Candle of the bucket still in progress at the given resolution, or null if it has no samples yet.
+     */
+    public synchronized Candle getOpenCandle(Resolution resolution) {
+        Bucket bucket = buckets[resolution.ordinal()];
+        return bucket.samples == 0 ? null : bucket.toCandle();
+    }
+
+    private class Bucket {
+
+        private final Resolution resolution;
+
+        private long start;
+        private double open, high, low, close, sum;
+        private int volume;
+        private int samples = 0;
+
+        private Bucket(Resolution resolution) { this.resolution = resolution; }
+
+        // Returns whether the sample closed the previous bucket.
+        private boolean add(long epoch, double price, int volume, List<HistoryEntry> entries) {
+
+            long bucketStart = resolution.getBucketStart(epoch);
+            boolean closed = false;
+
+            if (samples > 0 && bucketStart != start) {
+                entries.add(new HistoryEntry(item, resolution, start, toCandle()));
+                samples = 0;
+                closed = true;
+            }
+
+            if (samples == 0) {
+                start = bucketStart;
+                open = high = low = price;
+                sum = 0;
+                this.volume = 0;
+            }
+
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            close = price;
+            sum += price;
+            this.volume += volume;
+            samples++;
+
+            return closed;
+        }
+
+        // A 5 minute candle counts as the 5 samples it was made of.
+        private void merge(long bucketStart, Candle candle) {
+
+            int candleSamples = Resolution.FIVE_MINUTES.getSeconds() / 60;
+
+            if (samples == 0) {
+                start = bucketStart;
+                open = candle.getOpen();
+                high = candle.getHigh();
+                low = candle.getLow();
+                sum = 0;
+                volume = 0;
+            }
+
+            high = Math.max(high, candle.getHigh());
+            low = Math.min(low, candle.getLow());
+            close = candle.getClose();
+            sum += candle.getAverage() * candleSamples;
+            volume += candle.getVolume();
+            samples += candleSamples;
+        }
+
+        // Rows are plotted at the middle of their bucket.
+        private Candle toCandle() {
+            return new Candle(start + resolution.getSeconds() / 2, open, high, low, close, sum / samples, volume);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Fixed-capacity ring buffer of candles stored in parallel primitive arrays.
+ * Once full, every new sample overwrites the oldest one.
+ */
+public class PriceSeries {
+
+    public static final int BYTES_PER_SAMPLE = Long.BYTES + 5 * Double.BYTES + Integer.BYTES;
+
+    private final long[] epochs;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] prices;
+    private final int[] volumes;
+
+    private int head = 0;
+    private int size = 0;
+
+    public PriceSeries(int capacity) {
+        epochs = new long[Math.max(1, capacity)];
+        opens = new double[epochs.length];
+        highs = new double[epochs.length];
+        lows = new double[epochs.length];
+        closes = new double[epochs.length];
+        prices = new double[epochs.length];
+        volumes = new int[epochs.length];
+    }
+
+    public synchronized void add(Candle candle) {
+        epochs[head] = candle.getEpoch();
+        opens[head] = candle.getOpen();
+        highs[head] = candle.getHigh();
+        lows[head] = candle.getLow();
+        closes[head] = candle.getClose();
+        prices[head] = candle.getAverage();
+        volumes[head] = candle.getVolume();
+
+        head = (head + 1) % epochs.length;
+        if (size < epochs.length) size++;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public synchronized int size() { return size; }
+
+    public synchronized boolean isEmpty() { return size == 0; }
+
+    public synchronized long getLastEpoch() { return size == 0 ? Long.MIN_VALUE : epochs[index(size - 1)]; }
+
+    /**
+     * Price of the oldest sample newer than the given epoch with a non-zero price, or 0 if there is none.
+     */
+    public synchronized double getFirstPriceAfter(long fromEpoch) {
+        for (int i = 0; i < size; i++) {
+            int index = index(i);
+            if (epochs[index] > fromEpoch && prices[index] != 0) return prices[index];
+        }
+        return 0;
+    }
+
+    /**
+     * Appends, oldest first, every sample newer than the given epoch.
+     */
+    public synchronized void copyTo(List<Instant> target, long fromEpoch, boolean skipZero) {
+        for (int i = 0; i < size; i++) {
+            int index = index(i);
+            if (epochs[index] <= fromEpoch || (skipZero && prices[index] == 0)) continue;
+
+            target.add(new Instant(toLocalDateTime(epochs[index]), prices[index], volumes[index]));
+        }
+    }
+
+    /**
+     * Appends, oldest first, every candle newer than the given epoch.
+     */
+    public synchronized void copyCandlesTo(List<Candle> target, long fromEpoch) {
+        for (int i = 0; i < size; i++) {
+            int index = index(i);
+            if (epochs[index] <= fromEpoch) continue;
+
+            target.add(new Candle(epochs[index], opens[index], highs[index], lows[index], closes[index], prices[index], volumes[index]));
+        }
+    }
+
+    public int getCapacity() { return epochs.length; }
+
+    public long getBytes() { return (long) epochs.length * BYTES_PER_SAMPLE; }
+
+    private int index(int offset) {
+        return (head - size + offset + epochs.length) % epochs.length;
+    }
+
+    public static long toEpoch(LocalDateTime dateTime) { return dateTime.toEpochSecond(ZoneOffset.UTC); }
+
+    public static LocalDateTime toLocalDateTime(long epoch) { return LocalDateTime.ofEpochSecond(epoch, 0, ZoneOffset.UTC); }
+
+}
@@ -0,0 +1,32 @@
+package me.bounser.nascraft.market.unit.stats;
+
+public enum Resolution {
+
+    FIVE_MINUTES(300, "5m"),
+    FOUR_HOURS(4 * 3600, "4h"),
+    DAILY(24 * 3600, "1d");
+
+    private final int seconds;
+    private final String timeframe;
+
+    Resolution(int seconds, String timeframe) {
+        this.seconds = seconds;
+        this.timeframe = timeframe;
+    }
+
+    public int getSeconds() { return seconds; }
+
+    public String getTimeframe() { return timeframe; }
+
+    public long getBucketStart(long epoch) { return epoch - Math.floorMod(epoch, seconds); }
+
+    public static Resolution fromTimeframe(String timeframe) {
+        if (timeframe == null || timeframe.isEmpty()) return FIVE_MINUTES;
+
+        for (Resolution resolution : values())
+            if (resolution.timeframe.equalsIgnoreCase(timeframe)) return resolution;
+
+        return null;
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Last N values in a fixed-capacity ring buffer. Two monotonic deques of sequence numbers
+ * keep the maximum and minimum of the window available in constant time.
+ */
+public class RollingWindow {
+
+    private final double[] values;
+
+    // Sequence number of the next value. The value with sequence s lives at s % capacity.
+    private long next = 0;
+    private int size = 0;
+
+    private final long[] maxDeque;
+    private int maxHead = 0, maxSize = 0;
+
+    private final long[] minDeque;
+    private int minHead = 0, minSize = 0;
+
+    private final List<Double> view = Collections.unmodifiableList(new View());
+
+    public RollingWindow(int capacity) {
+        values = new double[Math.max(1, capacity)];
+        maxDeque = new long[values.length];
+        minDeque = new long[values.length];
+    }
+
+    public synchronized void add(double value) {
+
+        long sequence = next++;
+        long evicted = sequence - values.length;
+
+        if (maxSize > 0 && maxDeque[maxHead] <= evicted) { maxHead = (maxHead + 1) % values.length; maxSize--; }
+        if (minSize > 0 && minDeque[minHead] <= evicted) { minHead = (minHead + 1) % values.length; minSize--; }
+
+        values[(int) (sequence % values.length)] = value;
+        if (size < values.length) size++;
+
+        // Equal values replace older ones, so the extremes point to their latest occurrence.
+        while (maxSize > 0 && valueOf(maxDeque[(maxHead + maxSize - 1) % values.length]) <= value) maxSize--;
+        maxDeque[(maxHead + maxSize) % values.length] = sequence;
+        maxSize++;
+
+        while (minSize > 0 && valueOf(minDeque[(minHead + minSize - 1) % values.length]) >= value) minSize--;
+        minDeque[(minHead + minSize) % values.length] = sequence;
+        minSize++;
+    }
+
+    public synchronized void fill(double value) {
+        for (int i = 0; i < values.length; i++) add(value);
+    }
+
+    private double valueOf(long sequence) { return values[(int) (sequence % values.length)]; }
+
+    public synchronized int size() { return size; }
+
+    public synchronized boolean isEmpty() { return size == 0; }
+
+    /**
+     * @param index position from the oldest value (0) to the newest (size - 1)
+     */
+    public synchronized double get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return valueOf(next - size + index);
+    }
+
+    public synchronized double getOldest() { return get(0); }
+
+    public synchronized double getNewest() { return get(size - 1); }
+
+    public synchronized double getMax() { return maxSize == 0 ? 0 : valueOf(maxDeque[maxHead]); }
+
+    public synchronized double getMin() { return minSize == 0 ? 0 : valueOf(minDeque[minHead]); }
+
+    // Position, counted from the oldest value, of the latest occurrence of the maximum.
+    public synchronized int getMaxIndex() { return maxSize == 0 ? -1 : (int) (maxDeque[maxHead] - (next - size)); }
+
+    public synchronized int getMinIndex() { return minSize == 0 ? -1 : (int) (minDeque[minHead] - (next - size)); }
+
+    /**
+     * Read-only list backed by the window, oldest value first. It reflects later changes without copying.
+     */
+    public List<Double> asList() { return view; }
+
+    private class View extends AbstractList<Double> {
+
+        @Override
+        public Double get(int index) { return RollingWindow.this.get(index); }
+
+        @Override
+        public int size() { return RollingWindow.this.size(); }
+    }
+
+}
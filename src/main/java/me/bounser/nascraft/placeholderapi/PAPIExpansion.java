@@ -3,13 +3,13 @@ package me.bounser.nascraft.placeholderapi;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.config.Config;
-import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.PriceIndices;
 import me.bounser.nascraft.formatter.RoundUtils;
 import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
@@ -67,7 +67,7 @@ public class PAPIExpansion extends PlaceholderExpansion {
 
                     Bukkit.getScheduler().runTaskLaterAsynchronously(Nascraft.getInstance(), () -> cpiMonth = null, 200);
 
-                    List<CPIInstant> cpiHistory = DatabaseManager.get().getDatabase().getCPIHistory();
+                    List<CPIInstant> cpiHistory = PriceIndices.getInstance().getHistory();
 
                     int index = cpiHistory.size()-7;
 
@@ -85,7 +85,7 @@ public class PAPIExpansion extends PlaceholderExpansion {
 
                     Bukkit.getScheduler().runTaskLaterAsynchronously(Nascraft.getInstance(), () -> cpiWeek = null, 200);
 
-                    List<CPIInstant> cpiHistory = DatabaseManager.get().getDatabase().getCPIHistory();
+                    List<CPIInstant> cpiHistory = PriceIndices.getInstance().getHistory();
 
                     int index = cpiHistory.size()-7;
 
@@ -174,8 +174,8 @@ public class PAPIExpansion extends PlaceholderExpansion {
         if (item == null) return "0";
 
         switch (threeDividedParams[0]) {
-            case "buyprice": return String.valueOf(RoundUtils.roundTo(item.getPrice().getProjectedCost(-quantity, item.getPrice().getBuyTaxMultiplier()), item.getCurrency().getDecimalPrecission()));
-            case "sellprice": return String.valueOf(RoundUtils.roundTo(item.getPrice().getProjectedCost(quantity, item.getPrice().getSellTaxMultiplier()), item.getCurrency().getDecimalPrecission()));
+            case "buyprice": return String.valueOf((float) RoundUtils.roundHalfUp(item.getPrice().getProjectedCost(-quantity, item.getPrice().getBuyTaxMultiplier()), item.getCurrency().getDecimalPrecission()));
+            case "sellprice": return String.valueOf((float) RoundUtils.roundHalfUp(item.getPrice().getProjectedCost(quantity, item.getPrice().getSellTaxMultiplier()), item.getCurrency().getDecimalPrecission()));
         }
 
         return "0";
@@ -3,15 +3,19 @@ package me.bounser.nascraft.portfolio;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.PortfolioWriter;
 import me.bounser.nascraft.inventorygui.Portfolio.PortfolioInventory;
+import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.market.unit.Item;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -49,9 +53,8 @@ public class Portfolio {
 
     public void addItem(Item item, int amount) {
         inventory.merge(item, amount, Integer::sum);
-        DatabaseManager.get().getDatabase().updateItemPortfolio(uuid, item, inventory.get(item));
-        DatabaseManager.get().getDatabase().logContribution(uuid, item, amount);
-        updateInventoryInGame();
+        PortfolioWriter.getInstance().deposit(uuid, item, amount, inventory.get(item));
+        contentChanged();
     }
 
     public boolean hasItem(Item item, int amount) {
@@ -61,16 +64,14 @@ public class Portfolio {
     public void removeItem(Item item, int amount) {
 
         if (inventory != null && inventory.containsKey(item)) {
-            inventory.put(item, inventory.get(item)-amount);
+            int left = inventory.get(item)-amount;
 
-            if (inventory.get(item) <= 0) {
-                inventory.remove(item);
-                DatabaseManager.get().getDatabase().removeItemPortfolio(uuid, item);
-            }
+            if (left <= 0) inventory.remove(item);
+            else inventory.put(item, left);
 
-            DatabaseManager.get().getDatabase().logWithdraw(uuid, item, amount);
+            PortfolioWriter.getInstance().withdraw(uuid, item, amount, Math.max(left, 0));
 
-            updateInventoryInGame();
+            contentChanged();
         }
     }
 
@@ -126,6 +127,14 @@ public class Portfolio {
         return uuid;
     }
 
+    private void contentChanged() {
+
+        if (Config.getInstance().getLoansEnabled())
+            DebtManager.getInstance().onPortfolioChange(uuid, new HashMap<>(inventory));
+
+        updateInventoryInGame();
+    }
+
     private void updateInventoryInGame() {
 
         Player player = Bukkit.getPlayer(uuid);
@@ -146,18 +155,15 @@ public class Portfolio {
             
             for (Item item : inventory.keySet())
                 if (item != null)
-                    if (item.getPrice().canStockChange(inventory.get(item), false))
+                    if (item.getPrice().canStockChange(inventory.get(item), false)) {
                         value += item.sell(inventory.get(item), uuid, false);
-                    else
+                        PortfolioWriter.getInstance().setAmount(uuid, item, 0);
+                    } else {
                         newInventory.put(item, inventory.get(item));
+                    }
 
             inventory = newInventory;
-            updateInventoryInGame();
-
-            DatabaseManager.get().getDatabase().clearPortfolio(uuid);
-
-            for (Item item : inventory.keySet())
-                DatabaseManager.get().getDatabase().updateItemPortfolio(uuid, item, inventory.get(item));
+            contentChanged();
 
             callback.accept(value);
         });
@@ -168,6 +174,7 @@ public class Portfolio {
         Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
 
             double value = 0;
+            List<Item> sold = new ArrayList<>();
 
             for (Item item : inventory.keySet()) {
 
@@ -177,12 +184,15 @@ public class Portfolio {
 
                 if (item.getPrice().canStockChange(inventory.get(item), false)) {
                     value += item.sell(inventory.get(item), uuid, false);
-                    DatabaseManager.get().getDatabase().removeItemPortfolio(uuid, item);
+                    PortfolioWriter.getInstance().setAmount(uuid, item, 0);
+                    sold.add(item);
                 }
 
             }
-            retrievePortfolio();
-            updateInventoryInGame();
+
+            for (Item item : sold) inventory.remove(item);
+
+            contentChanged();
             callback.accept(value);
         });
     }
@@ -1,51 +1,166 @@
 package me.bounser.nascraft.portfolio;
 
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.PortfolioWriter;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.managers.DebtManager;
-import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class PortfoliosManager {
 
+    // Each portfolio is loaded once, whoever asks first loads it and everyone else waits on the same future
+    private final Map<UUID, CachedPortfolio> portfolios = new ConcurrentHashMap<>();
 
-    private final HashMap<UUID, Portfolio> inventories = new HashMap<>();
+    // Not the Bukkit async scheduler, it only starts tasks on the main thread heartbeat and the main thread may be waiting on this load
+    private final ExecutorService loader = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Nascraft-PortfolioLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxSize;
+    private final long idleMillis;
 
     private static PortfoliosManager instance;
 
     public static PortfoliosManager getInstance() { return instance == null ? instance = new PortfoliosManager() : instance; }
 
+    private PortfoliosManager() {
+        maxSize = Math.max(1, Config.getInstance().getPortfolioCacheMaxSize());
+        idleMillis = TimeUnit.MINUTES.toMillis(Math.max(1, Config.getInstance().getPortfolioCacheIdleMinutes()));
+
+        Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(), this::evict, 20L * 60, 20L * 60);
+    }
+
+    /**
+     * Returns the portfolio, loading it on the calling thread if it isn't in memory yet.
+     */
     public Portfolio getPortfolio(UUID uuid) {
 
-        if (inventories.containsKey(uuid)) return inventories.get(uuid);
+        if (uuid == null) return null;
+
+        CachedPortfolio cached = portfolios.get(uuid);
 
-        inventories.put(uuid, new Portfolio(uuid));
+        if (cached == null) {
+            CachedPortfolio created = new CachedPortfolio();
+            cached = portfolios.putIfAbsent(uuid, created);
 
-        return inventories.get(uuid);
+            if (cached == null) {
+                cached = created;
+                load(uuid, created);
+            }
+        }
+
+        cached.touch();
+        return cached.future.join();
     }
 
-    public Portfolio getPortfolio(String userid) {
+    public Portfolio getPortfolio(String userid) { return getPortfolio(LinkManager.getInstance().getUUID(userid)); }
+
+    /**
+     * Returns the portfolio without blocking, loading it off the main thread if it isn't in memory yet.
+     */
+    public CompletableFuture<Portfolio> getPortfolioAsync(UUID uuid) {
 
-        UUID uuid = LinkManager.getInstance().getUUID(userid);
+        if (uuid == null) return CompletableFuture.completedFuture(null);
 
-        if (inventories.containsKey(uuid)) return inventories.get(uuid);
+        CachedPortfolio cached = portfolios.get(uuid);
 
-        inventories.put(uuid, new Portfolio(uuid));
+        if (cached == null) {
+            CachedPortfolio created = new CachedPortfolio();
+            cached = portfolios.putIfAbsent(uuid, created);
+
+            if (cached == null) {
+                cached = created;
+                CompletableFuture.runAsync(() -> load(uuid, created), loader);
+            }
+        }
 
-        return inventories.get(uuid);
+        cached.touch();
+        return cached.future;
     }
 
+    public CompletableFuture<Portfolio> getPortfolioAsync(String userid) { return getPortfolioAsync(LinkManager.getInstance().getUUID(userid)); }
+
+    /**
+     * Loads the portfolio on the calling thread so it is ready by the time the player joins.
+     */
+    public void preload(UUID uuid) { getPortfolio(uuid); }
+
+    public boolean isLoaded(UUID uuid) {
+        CachedPortfolio cached = portfolios.get(uuid);
+        return cached != null && cached.future.isDone();
+    }
+
+    private void load(UUID uuid, CachedPortfolio cached) {
+        try {
+            cached.future.complete(new Portfolio(uuid));
+        } catch (Exception e) {
+            // Not kept so the next request tries again
+            portfolios.remove(uuid, cached);
+            cached.future.completeExceptionally(e);
+            Nascraft.getInstance().getLogger().warning("Error loading portfolio of " + uuid + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops portfolios of offline players that haven't been used for a while, and the least recently
+     * used ones while there are more than the maximum.
+     */
+    private void evict() {
+
+        long now = System.currentTimeMillis();
+
+        List<Map.Entry<UUID, CachedPortfolio>> candidates = new ArrayList<>();
+
+        for (Map.Entry<UUID, CachedPortfolio> entry : portfolios.entrySet()) {
+
+            if (!entry.getValue().future.isDone() || Bukkit.getPlayer(entry.getKey()) != null) continue;
+
+            // Loading it again before its changes are written would bring back the old content
+            if (PortfolioWriter.getInstance().hasPending(entry.getKey())) continue;
+
+            if (now - entry.getValue().lastAccess > idleMillis) {
+                portfolios.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            candidates.add(entry);
+        }
+
+        int excess = portfolios.size() - maxSize;
+
+        if (excess <= 0) return;
+
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+
+        for (int i = 0; i < excess && i < candidates.size(); i++)
+            portfolios.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+    }
+
+    public int getCachedPortfolios() { return portfolios.size(); }
+
     public void savePortfoliosWorthOfOnlinePlayers() {
 
         for (Player player : Bukkit.getOnlinePlayers()) {
 
             if (player == null) continue;
 
-            double worth = getPortfolio(player.getUniqueId()).getValueOfDefaultCurrency() - DebtManager.getInstance().getDebtOfPlayer(player.getUniqueId());
+            double worth = getPortfolio(player.getUniqueId()).getValueOfDefaultCurrency();
             double debt = DebtManager.getInstance().getDebtOfPlayer(player.getUniqueId());
 
             if (worth == 0) continue;
@@ -67,4 +182,13 @@ public class PortfoliosManager {
         DatabaseManager.get().getDatabase().saveOrUpdateWorthToday(player.getUniqueId(), worth - debt);
     }
 
+    private static class CachedPortfolio {
+
+        private final CompletableFuture<Portfolio> future = new CompletableFuture<>();
+
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private void touch() { lastAccess = System.currentTimeMillis(); }
+    }
+
 }
@@ -8,8 +8,7 @@ import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.managers.MoneyManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
-import me.bounser.nascraft.market.MarketManager;
-import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.BulkSale;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -95,35 +94,15 @@ public class WandListener implements Listener {
 
             Inventory inventory = getInventory(event.getClickedBlock());
 
-            HashMap<Item, Float> valuableItems = new HashMap<>();
-
             // ESTIMATE
             if (wand.getEstimateAction() != null && event.getAction().equals(wand.getEstimateAction())) {
 
-                for (ItemStack itemStack : inventory.getContents()) {
-
-                    if (itemStack == null) continue;
-
-                    Item item = MarketManager.getInstance().getItem(itemStack);
-
-                    if (item == null || !wand.getCurrencies().contains(item.getCurrency())) continue;
-
-                    Item parent = item.isParent() ? item : item.getParent();
-
-                    if (valuableItems.containsKey(parent)) {
-                        valuableItems.put(parent, valuableItems.get(parent) + itemStack.getAmount() * item.getMultiplier());
-                    } else {
-                        valuableItems.put(parent, itemStack.getAmount() * item.getMultiplier());
-                    }
-                }
-
                 HashMap<Currency, Double> values = new HashMap<>();
 
                 for (Currency currency : wand.getCurrencies())
                     values.put(currency, 0d);
 
-                for (Item item : valuableItems.keySet())
-                    values.put(item.getCurrency(), values.get(item.getCurrency()) + item.getPrice().getProjectedCost(valuableItems.get(item), item.getPrice().getSellTaxMultiplier()));
+                values.putAll(BulkSale.of(inventory.getContents(), item -> wand.getCurrencies().contains(item.getCurrency())).quote());
 
                 for (Currency currency : wand.getCurrencies())
                     values.put(currency, values.get(currency) * wand.getMultiplier());
@@ -190,19 +169,14 @@ public class WandListener implements Listener {
                 for (Currency currency : wand.getCurrencies())
                     totalWorth.put(currency, 0d);
 
-                for (ItemStack itemStack : inventory.getContents()) {
-
-                    if (MarketManager.getInstance().isAValidItem(itemStack)) {
-
-                        Item item = MarketManager.getInstance().getItem(itemStack);
+                ItemStack[] contents = inventory.getContents();
 
-                        if (!wand.getCurrencies().contains(item.getCurrency())) continue;
+                BulkSale sale = BulkSale.of(contents, item -> wand.getCurrencies().contains(item.getCurrency()));
 
-                        totalWorth.put(item.getCurrency(), totalWorth.get(item.getCurrency()) + item.sell(itemStack.getAmount(), event.getPlayer().getUniqueId(), false));
+                totalWorth.putAll(sale.execute(event.getPlayer().getUniqueId()));
 
-                        itemStack.setAmount(0);
-                    }
-                }
+                for (int slot = 0; slot < contents.length; slot++)
+                    if (sale.isSold(slot)) inventory.setItem(slot, null);
 
                 float total = 0;
 
@@ -307,29 +281,10 @@ public class WandListener implements Listener {
 
     public float getWorthOfInventory(Inventory inventory) {
 
-        HashMap<Item, Float> content = new HashMap<>();
-
-        for (ItemStack itemStack : inventory.getContents()) {
-
-            if (itemStack == null) continue;
-
-            Item item = MarketManager.getInstance().getItem(itemStack);
-
-            if (item == null) continue;
-
-            Item parent = item.isParent() ? item : item.getParent();
-
-            if (content.containsKey(parent)) {
-                content.put(parent, content.get(parent) + itemStack.getAmount() * item.getMultiplier());
-            } else {
-                content.put(parent, itemStack.getAmount() * item.getMultiplier());
-            }
-        }
-
         float worth = 0;
 
-        for (Item item : content.keySet())
-            worth += item.getPrice().getProjectedCost(content.get(item) * item.getMultiplier(), item.getPrice().getSellTaxMultiplier());
+        for (double value : BulkSale.of(inventory.getContents()).quote().values())
+            worth += value;
 
         return worth;
     }
@@ -4,9 +4,8 @@ import io.javalin.Javalin;
 import io.javalin.http.staticfiles.Location;
 import me.bounser.nascraft.managers.ImagesManager;
 import me.bounser.nascraft.market.MarketManager;
-import me.bounser.nascraft.web.dto.CategoryDTO;
-import me.bounser.nascraft.web.dto.ItemDTO;
-import me.bounser.nascraft.web.dto.PortfolioDTO;
+import me.bounser.nascraft.market.unit.stats.Resolution;
+import me.bounser.nascraft.web.dto.CandlesDTO;
 import me.bounser.nascraft.web.dto.TimeSeriesDTO;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -54,8 +53,11 @@ public class WebServerManager {
         }
 
         try {
+            WebSnapshots.getInstance().refresh();
+
             webServer = Javalin.create(config -> {
                 config.showJavalinBanner = false;
+                config.jsonMapper(WebSnapshots.getInstance().getJsonMapper());
 
                 config.staticFiles.add(staticFiles -> {
                     staticFiles.hostedPath = "/";
@@ -67,35 +69,20 @@ public class WebServerManager {
 
             plugin.getLogger().info("Web server started successfully on port " + port);
 
-            webServer.get("/api/items", ctx -> {
-                List<ItemDTO> items = MarketManager.getInstance().getAllItemData();
+            webServer.get("/api/items", WebSnapshots.getInstance()::serveItems);
 
-                if (items == null) {
-                    items = new ArrayList<>();
-                }
-                ctx.json(items);
-            });
+            webServer.get("/api/top-portfolios", WebSnapshots.getInstance()::serveTopPortfolios);
 
-            webServer.get("/api/top-portfolios", ctx -> {
-                List<PortfolioDTO> portfolios = MarketManager.getInstance().getTopPortfolios();
+            webServer.get("/api/categories", WebSnapshots.getInstance()::serveCategories);
 
-                if (portfolios == null) {
-                    portfolios = new ArrayList<>();
-                }
-                ctx.json(portfolios);
-            });
+            webServer.get("/api/charts/cpi", WebSnapshots.getInstance()::serveCPI);
 
-            webServer.get("/api/categories", ctx -> {
-                List<CategoryDTO> categories = MarketManager.getInstance().getCategoriesDTO();
+            webServer.get("/api/popular-item", WebSnapshots.getInstance()::servePopularItem);
 
-                if (categories == null) {
-                    categories = new ArrayList<>();
-                }
-                ctx.json(categories);
-            });
+            webServer.get("/api/charts/item/{identifier}", ctx -> {
+                String identifier = ctx.pathParam("identifier");
 
-            webServer.get("/api/charts/cpi", ctx -> {
-                List<TimeSeriesDTO> dataPoints = MarketManager.getInstance().getCPITimeSeries();
+                List<TimeSeriesDTO> dataPoints = MarketManager.getInstance().getItemTimeSeries(identifier);
 
                 if (dataPoints == null) {
                     dataPoints = new ArrayList<>();
@@ -104,25 +91,24 @@ public class WebServerManager {
                 ctx.json(dataPoints);
             });
 
-            webServer.get("/api/popular-item", ctx -> {
-                ItemDTO popularItem = MarketManager.getInstance().getPopularItem();
-                if (popularItem != null) {
-                    ctx.json(popularItem);
-                } else {
-                    ctx.status(404).result("Popular item data not available.");
-                }
-            });
-
-            webServer.get("/api/charts/item/{identifier}", ctx -> {
+            webServer.get("/api/charts/item/{identifier}/candles", ctx -> {
                 String identifier = ctx.pathParam("identifier");
 
-                List<TimeSeriesDTO> dataPoints = MarketManager.getInstance().getItemTimeSeries(identifier);
+                Resolution resolution = Resolution.fromTimeframe(ctx.queryParam("tf"));
 
-                if (dataPoints == null) {
-                    dataPoints = new ArrayList<>();
+                if (resolution == null) {
+                    ctx.status(400).result("Unknown timeframe. Available: 5m, 4h, 1d.");
+                    return;
                 }
 
-                ctx.json(dataPoints);
+                CandlesDTO candles = MarketManager.getInstance().getItemCandles(identifier, resolution);
+
+                if (candles == null) {
+                    ctx.status(404).result("Item not found.");
+                    return;
+                }
+
+                ctx.json(candles);
             });
 
             webServer.get("/api/icons/{identifier}.png", ctx -> {
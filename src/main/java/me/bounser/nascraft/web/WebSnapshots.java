@@ -0,0 +1,175 @@
+package me.bounser.nascraft.web;
+
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import io.javalin.json.JavalinJackson;
+import io.javalin.json.JsonMapper;
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.market.MarketManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Responses of the web API that are the same for every visitor, encoded once per market tick. Requests are
+ * served the stored bytes, gzipped if the client accepts it, or a 304 if the client already has them.
+ */
+public class WebSnapshots {
+
+    private final JsonMapper jsonMapper = new JavalinJackson();
+
+    private volatile Snapshot items;
+    private volatile Snapshot categories;
+    private volatile Snapshot topPortfolios;
+    private volatile Snapshot popularItem;
+    private volatile Snapshot cpi;
+
+    private static WebSnapshots instance;
+
+    public static WebSnapshots getInstance() { return instance == null ? instance = new WebSnapshots() : instance; }
+
+    public JsonMapper getJsonMapper() { return jsonMapper; }
+
+    public synchronized void refresh() {
+        items = encode(items, () -> MarketManager.getInstance().getAllItemData());
+        categories = encode(categories, () -> MarketManager.getInstance().getCategoriesDTO());
+        topPortfolios = encode(topPortfolios, () -> MarketManager.getInstance().getTopPortfolios());
+        popularItem = encode(popularItem, () -> MarketManager.getInstance().getPopularItem());
+        cpi = encode(cpi, () -> MarketManager.getInstance().getCPITimeSeries());
+    }
+
+    public void serveItems(Context ctx) { serve(ctx, items); }
+
+    public void serveCategories(Context ctx) { serve(ctx, categories); }
+
+    public void serveTopPortfolios(Context ctx) { serve(ctx, topPortfolios); }
+
+    public void servePopularItem(Context ctx) { serve(ctx, popularItem); }
+
+    public void serveCPI(Context ctx) { serve(ctx, cpi); }
+
+    private void serve(Context ctx, Snapshot snapshot) {
+
+        if (snapshot == null) {
+            ctx.status(HttpStatus.NOT_FOUND).result("Data not available.");
+            return;
+        }
+
+        ctx.header(Header.ETAG, snapshot.etag);
+        ctx.header(Header.CACHE_CONTROL, "no-cache");
+        ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+
+        if (matches(ctx.header(Header.IF_NONE_MATCH), snapshot.etag)) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+
+        ctx.contentType("application/json");
+
+        if (acceptsGzip(ctx.header(Header.ACCEPT_ENCODING))) {
+            ctx.header(Header.CONTENT_ENCODING, "gzip");
+            ctx.result(snapshot.gzip);
+        } else {
+            ctx.result(snapshot.json);
+        }
+    }
+
+    /**
+     * Whether gzip has a quality above 0, given explicitly or through *. An explicit gzip;q=0 refuses it.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) return false;
+
+        double gzip = -1, wildcard = -1;
+
+        for (String entry : acceptEncoding.split(",")) {
+
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase();
+
+            double quality = 1;
+
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (!parameter.startsWith("q=") && !parameter.startsWith("Q=")) continue;
+
+                try {
+                    quality = Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    quality = 0;
+                }
+            }
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) gzip = Math.max(gzip, quality);
+            else if (coding.equals("*")) wildcard = quality;
+        }
+
+        return gzip >= 0 ? gzip > 0 : wildcard > 0;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+
+        if (ifNoneMatch == null) return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the encoded payload, null if there is nothing to serve or the previous one if it couldn't be built.
+     */
+    private Snapshot encode(Snapshot previous, Supplier<Object> payload) {
+
+        try {
+            Object value = payload.get();
+
+            if (value == null) return null;
+
+            byte[] json = jsonMapper.toJsonString(value, value.getClass()).getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(json);
+            }
+
+            // First 128 bits of the SHA-256 of the payload, so an unchanged payload keeps its ETag across ticks
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+
+            StringBuilder etag = new StringBuilder("W/\"");
+            for (int i = 0; i < 16; i++) etag.append(String.format("%02x", hash[i]));
+            etag.append('"');
+
+            // Weak since the same payload is sent with and without gzip
+            return new Snapshot(json, gzip.toByteArray(), etag.toString());
+
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            Nascraft.getInstance().getLogger().warning("Error encoding web snapshot: " + e.getMessage());
+            return previous;
+        }
+    }
+
+    private static class Snapshot {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+
+        private Snapshot(byte[] json, byte[] gzip, String etag) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.bounser.nascraft.web.dto;
+
+import me.bounser.nascraft.market.unit.stats.Candle;
+
+import java.util.List;
+
+public class CandlesDTO {
+
+    private final String timeframe;
+
+    private final long[] time;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final int[] volume;
+
+    public CandlesDTO(String timeframe, List<Candle> candles) {
+        this.timeframe = timeframe;
+
+        int size = candles.size();
+
+        time = new long[size];
+        open = new double[size];
+        high = new double[size];
+        low = new double[size];
+        close = new double[size];
+        volume = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            Candle candle = candles.get(i);
+            time[i] = candle.getEpoch();
+            open[i] = candle.getOpen();
+            high[i] = candle.getHigh();
+            low[i] = candle.getLow();
+            close[i] = candle.getClose();
+            volume[i] = candle.getVolume();
+        }
+    }
+
+    public String getTimeframe() { return timeframe; }
+
+    public long[] getTime() { return time; }
+
+    public double[] getOpen() { return open; }
+
+    public double[] getHigh() { return high; }
+
+    public double[] getLow() { return low; }
+
+    public double[] getClose() { return close; }
+
+    public int[] getVolume() { return volume; }
+
+}